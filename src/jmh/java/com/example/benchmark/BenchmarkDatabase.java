@@ -0,0 +1,82 @@
+package com.example.benchmark;
+
+import com.example.RestaurantRatingApplication;
+import com.example.service.RestaurantRatingService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Поднимает контекст приложения на встроенной H2 (режим PostgreSQL) и наполняет ее заданным числом отзывов.
+// Отзывы распределены по RESTAURANTS ресторанам: каждый посетитель оценивает каждый ресторан.
+final class BenchmarkDatabase {
+
+    static final int RESTAURANTS = 100;
+    private static final int BATCH_SIZE = 5_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(int reviewCount) {
+        SpringApplication application = new SpringApplication(RestaurantRatingApplication.class);
+        application.setAdditionalProfiles("bench");
+        ConfigurableApplicationContext context = application.run();
+        seed(context, reviewCount);
+        return context;
+    }
+
+    static int visitorCount(int reviewCount) {
+        return Math.max(1, reviewCount / RESTAURANTS);
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int reviewCount) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("DELETE FROM reviews");
+        jdbc.update("DELETE FROM restaurants");
+        jdbc.update("DELETE FROM visitors");
+
+        List<Object[]> restaurants = new ArrayList<>(RESTAURANTS);
+        for (long id = 1; id <= RESTAURANTS; id++) {
+            restaurants.add(new Object[]{id, "Restaurant " + id, "Benchmark restaurant " + id, "ITALIAN", 1000 + id});
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO restaurants (id, name, description, cuisine_type, average_bill, rating, review_count, rating_sum)
+                VALUES (?, ?, ?, ?, ?, 0, 0, 0)
+                """, restaurants);
+
+        int visitors = visitorCount(reviewCount);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        // Последний посетитель без отзывов нужен бенчмарку вставки
+        for (long id = 1; id <= visitors + 1; id++) {
+            batch.add(new Object[]{id, "Visitor " + id, 30, "Other"});
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate("INSERT INTO visitors (id, name, age, gender) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO visitors (id, name, age, gender) VALUES (?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+
+        String insertReview = "INSERT INTO reviews (visitor_id, restaurant_id, rating, review_text) VALUES (?, ?, ?, ?)";
+        int inserted = 0;
+        for (long visitorId = 1; visitorId <= visitors && inserted < reviewCount; visitorId++) {
+            for (long restaurantId = 1; restaurantId <= RESTAURANTS && inserted < reviewCount; restaurantId++) {
+                batch.add(new Object[]{visitorId, restaurantId, (int) ((visitorId + restaurantId) % 5) + 1, "Benchmark review"});
+                inserted++;
+                if (batch.size() == BATCH_SIZE) {
+                    jdbc.batchUpdate(insertReview, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(insertReview, batch);
+        }
+
+        context.getBean(RestaurantRatingService.class).rebuildAll();
+    }
+}
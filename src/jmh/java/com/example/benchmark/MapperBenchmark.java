@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.entity.CuisineType;
+import com.example.entity.Restaurant;
+import com.example.entity.Review;
+import com.example.entity.Visitor;
+import com.example.mapper.RestaurantMapper;
+import com.example.mapper.RestaurantMapperImpl;
+import com.example.mapper.ReviewMapper;
+import com.example.mapper.ReviewMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость маппинга MapStruct без БД
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    private final ReviewMapper reviewMapper = new ReviewMapperImpl();
+    private final RestaurantMapper restaurantMapper = new RestaurantMapperImpl();
+
+    private Review review;
+    private Restaurant restaurant;
+    private ReviewRequestDTO reviewRequest;
+
+    @Setup
+    public void setUp() {
+        restaurant = new Restaurant();
+        restaurant.setId(1L);
+        restaurant.setName("Italian Paradise");
+        restaurant.setDescription("Authentic Italian cuisine");
+        restaurant.setCuisineType(CuisineType.ITALIAN);
+        restaurant.setAverageBill(new BigDecimal("1500.00"));
+        restaurant.setRating(new BigDecimal("4.50"));
+
+        Visitor visitor = new Visitor();
+        visitor.setId(1L);
+
+        review = new Review();
+        review.setVisitor(visitor);
+        review.setRestaurant(restaurant);
+        review.setRating(5);
+        review.setReviewText("беллисимо");
+
+        reviewRequest = new ReviewRequestDTO(1L, 1L, 5, "беллисимо");
+    }
+
+    @Benchmark
+    public ReviewResponseDTO reviewToResponse() {
+        return reviewMapper.toResponseDTO(review);
+    }
+
+    @Benchmark
+    public Review reviewRequestToEntity() {
+        return reviewMapper.toEntity(reviewRequest);
+    }
+
+    @Benchmark
+    public RestaurantResponseDTO restaurantToResponse() {
+        return restaurantMapper.toResponseDTO(restaurant);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.benchmark;
+
+import com.example.dto.CursorPageDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.service.ReviewService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+// Страницы отзывов ресторана: OFFSET-пагинация (первая и глубокая страница) против seek-пагинации
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReviewPaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int reviewCount;
+
+    private ConfigurableApplicationContext context;
+    private ReviewService reviewService;
+    private int deepPage;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(reviewCount);
+        reviewService = context.getBean(ReviewService.class);
+
+        // Последняя страница первого ресторана
+        int reviewsPerRestaurant = Math.max(1, reviewCount / BenchmarkDatabase.RESTAURANTS);
+        deepPage = Math.max(0, (reviewsPerRestaurant - 1) / PAGE_SIZE);
+
+        // Курсор страницы i - nextCursor страницы i - 1; при deepPage = 0 глубокая страница и есть первая
+        CursorPageDTO<ReviewResponseDTO> page = reviewService.scrollReviewsByRestaurant(1L, null, PAGE_SIZE, true, false);
+        for (int i = 1; i <= deepPage && page.nextCursor() != null; i++) {
+            deepCursor = page.nextCursor();
+            if (i < deepPage) {
+                page = reviewService.scrollReviewsByRestaurant(1L, deepCursor, PAGE_SIZE, true, false);
+            }
+        }
+        if (deepPage > 0 && deepCursor == null) {
+            throw new IllegalStateException("Нет курсора для страницы " + deepPage + ": данных меньше, чем ожидалось");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ReviewResponseDTO> offsetFirstPage() {
+        return reviewService.getReviewsByRestaurant(1L, 0, PAGE_SIZE, "rating", "asc");
+    }
+
+    @Benchmark
+    public Page<ReviewResponseDTO> offsetDeepPage() {
+        return reviewService.getReviewsByRestaurant(1L, deepPage, PAGE_SIZE, "rating", "asc");
+    }
+
+    @Benchmark
+    public CursorPageDTO<ReviewResponseDTO> seekFirstPage() {
+        return reviewService.scrollReviewsByRestaurant(1L, null, PAGE_SIZE, true, false);
+    }
+
+    @Benchmark
+    public CursorPageDTO<ReviewResponseDTO> seekDeepPage() {
+        return reviewService.scrollReviewsByRestaurant(1L, deepCursor, PAGE_SIZE, true, false);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.benchmark;
+
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.entity.Restaurant;
+import com.example.entity.Review;
+import com.example.entity.Visitor;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import com.example.repository.VisitorRepository;
+import com.example.service.RestaurantRatingService;
+import com.example.service.ReviewService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+// Запись отзыва и пересчет рейтинга при разном объеме таблицы reviews
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReviewServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int reviewCount;
+
+    private ConfigurableApplicationContext context;
+    private ReviewService reviewService;
+    private RestaurantRatingService restaurantRatingService;
+    private VisitorRepository visitorRepository;
+    private RestaurantRepository restaurantRepository;
+    private ReviewRepository reviewRepository;
+    private ChangeOutbox changeOutbox;
+    private TransactionTemplate transactionTemplate;
+    private long freshVisitorId;
+    private long restaurantId;
+    private int rating;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(reviewCount);
+        reviewService = context.getBean(ReviewService.class);
+        restaurantRatingService = context.getBean(RestaurantRatingService.class);
+        visitorRepository = context.getBean(VisitorRepository.class);
+        restaurantRepository = context.getBean(RestaurantRepository.class);
+        reviewRepository = context.getBean(ReviewRepository.class);
+        changeOutbox = context.getBean(ChangeOutbox.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        freshVisitorId = BenchmarkDatabase.visitorCount(reviewCount) + 1L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextRestaurant() {
+        restaurantId = restaurantId % BenchmarkDatabase.RESTAURANTS + 1;
+        rating = rating % 5 + 1;
+    }
+
+    // Полный путь POST /api/reviews: вставка с проверками ссылок и дубля в БД и обновление рейтинга.
+    // SampleTime дополнительно дает перцентили (p99) по каждому вызову
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    public ReviewResponseDTO saveAndDelete() {
+        ReviewResponseDTO saved = reviewService.save(
+                new ReviewRequestDTO(freshVisitorId, restaurantId, rating, "benchmark"));
+        reviewService.delete(freshVisitorId, restaurantId);
+        return saved;
+    }
+
+    // Прежний путь записи для сравнения в том же прогоне: загрузка посетителя и ресторана, проверка дубля
+    // отдельным SELECT и сохранение сущности; журнал изменений пишется так же, как в новом пути,
+    // чтобы разница p99 относилась только к числу обращений к БД
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    public ReviewResponseDTO legacySaveAndDelete() {
+        ReviewResponseDTO saved = transactionTemplate.execute(status -> {
+            Visitor visitor = visitorRepository.findById(freshVisitorId).orElseThrow();
+            Restaurant restaurant = restaurantRepository.findById(restaurantId).orElseThrow();
+            if (reviewRepository.findByVisitorIdAndRestaurantId(freshVisitorId, restaurantId).isPresent()) {
+                throw new IllegalStateException("Посетитель уже оставил отзыв");
+            }
+            Review review = new Review();
+            review.setVisitor(visitor);
+            review.setRestaurant(restaurant);
+            review.setRating(rating);
+            review.setReviewText("benchmark");
+            Review savedReview = reviewRepository.save(review);
+            changeOutbox.record(ChangedEntity.REVIEW, ChangeOutbox.reviewKey(freshVisitorId, restaurantId),
+                    ChangeType.CREATED, null);
+            restaurantRatingService.onReviewsChanged(restaurantId, 1, savedReview.getRating());
+            return new ReviewResponseDTO(freshVisitorId, restaurantId, savedReview.getRating(),
+                    savedReview.getReviewText());
+        });
+        reviewService.delete(freshVisitorId, restaurantId);
+        return saved;
+    }
+
+    // Изменение оценки: блокировка строки отзыва и дельта рейтинга
+    @Benchmark
+    public ReviewResponseDTO updateRating() {
+        return reviewService.update(1L, restaurantId, new ReviewRequestDTO(1L, restaurantId, rating, "benchmark"));
+    }
+
+    // Полный пересчет агрегатов одного ресторана по всем его отзывам (сверка / отложенный режим)
+    @Benchmark
+    public void rebuildRestaurantRating() {
+        restaurantRatingService.rebuild(restaurantId);
+    }
+}
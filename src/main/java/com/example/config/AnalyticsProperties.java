@@ -0,0 +1,12 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Пересборка сводок аналитики: дни старше dailyWindowDays не пересчитываются
+@ConfigurationProperties(prefix = "app.analytics")
+public record AnalyticsProperties(
+        @DefaultValue("900000") long refreshIntervalMs,
+        @DefaultValue("30") int dailyWindowDays,
+        @DefaultValue("100") int topVisitors
+) {}
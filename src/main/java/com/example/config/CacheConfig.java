@@ -0,0 +1,37 @@
+package com.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// При app.cache.enabled=false кэширование не включается вовсе и аннотации @Cacheable/@CacheEvict ничего не делают
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(prefix = "app.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    public static final String RESTAURANTS = "restaurants";
+    public static final String VISITORS = "visitors";
+
+    @Bean
+    public CacheManager cacheManager(LookupCacheProperties properties) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats());
+        caffeineCacheManager.setAllowNullValues(false);
+        // Имена заданы заранее, чтобы метрики hit/miss/eviction регистрировались при старте
+        caffeineCacheManager.setCacheNames(List.of(RESTAURANTS, VISITORS));
+
+        // Инвалидация откладывается до коммита, чтобы параллельное чтение не вернуло в кэш старое значение
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Очередь перед пулом соединений: permits = 0 означает размер пула Hikari за вычетом reserved.
+// Резерв остается вложенным соединениям, которые идут мимо очереди, и фоновым задачам
+@ConfigurationProperties(prefix = "app.datasource.bulkhead")
+public record DataSourceBulkheadProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0") int permits,
+        @DefaultValue("2") int reserved,
+        @DefaultValue("60s") Duration acquireTimeout
+) {}
@@ -0,0 +1,46 @@
+package com.example.config;
+
+import com.example.datasource.BulkheadDataSource;
+import com.example.datasource.ConnectionWaitTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Ожидание в очередях всех пулов (основного и реплики); по нему RateLimitFilter сбрасывает нагрузку
+    @Bean
+    public ConnectionWaitTracker connectionWaitTracker() {
+        return new ConnectionWaitTracker();
+    }
+
+    // Оборачивает каждый пул Hikari в BulkheadDataSource (app.datasource.bulkhead.enabled)
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(
+            ObjectProvider<DataSourceBulkheadProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<ConnectionWaitTracker> waitTracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                DataSourceBulkheadProperties bulkhead = properties.getObject();
+                if (!bulkhead.enabled()) {
+                    return bean;
+                }
+                int permits = bulkhead.permits() > 0 ? bulkhead.permits()
+                        : Math.max(1, hikari.getMaximumPoolSize() - bulkhead.reserved());
+                String poolName = hikari.getPoolName() != null ? hikari.getPoolName() : beanName;
+                return new BulkheadDataSource(hikari, poolName, permits, bulkhead.acquireTimeout(),
+                        meterRegistry.getIfAvailable(SimpleMeterRegistry::new), waitTracker.getObject());
+            }
+        };
+    }
+}
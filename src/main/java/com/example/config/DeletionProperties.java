@@ -0,0 +1,16 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Удаление посетителей и ресторанов вместе с отзывами: размер порции DELETE,
+// пауза между порциями фонового задания и сколько хранить статусы завершенных заданий
+@ConfigurationProperties(prefix = "app.deletion")
+public record DeletionProperties(
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("0ms") Duration batchPause,
+        @DefaultValue("1000") int maxRetainedJobs,
+        @DefaultValue("24h") Duration jobRetention
+) {}
@@ -0,0 +1,72 @@
+package com.example.config;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.dto.VisitorResponseDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Демо-данные только для локального запуска: --spring.profiles.active=demo
+@Slf4j
+@Configuration
+@Profile("demo")
+public class DemoDataConfig {
+
+    @Bean
+    public CommandLineRunner demoDataSeeder(
+            VisitorService visitorService,
+            RestaurantService restaurantService,
+            ReviewService reviewService) {
+
+        return args -> {
+            log.info("Application started successfully!");
+            log.info("Swagger UI available at: http://localhost:8080/swagger-ui.html");
+
+            VisitorRequestDTO visitor1 = new VisitorRequestDTO("Ivan", 25, "Man");
+            VisitorRequestDTO visitor2 = new VisitorRequestDTO("Anna", 30, "Woman");
+
+            VisitorResponseDTO savedVisitor1 = visitorService.save(visitor1);
+            visitorService.save(visitor2);
+
+            RestaurantRequestDTO restaurant1 = new RestaurantRequestDTO(
+                    "Italian Paradise",
+                    "Authentic Italian cuisine",
+                    CuisineType.ITALIAN,
+                    new BigDecimal("1500.00")
+            );
+
+            RestaurantResponseDTO savedRestaurant1 = restaurantService.save(restaurant1);
+
+            ReviewRequestDTO review1 = new ReviewRequestDTO(
+                    savedVisitor1.id(),
+                    savedRestaurant1.id(),
+                    5,
+                    "беллисимо"
+            );
+
+            reviewService.save(review1);
+
+            Page<ReviewResponseDTO> reviewsPage = reviewService.getReviewsByRestaurant(
+                    savedRestaurant1.id(), 0, 10, "rating", "desc");
+            log.info("все отзывы: {}", reviewsPage.getTotalElements());
+
+            List<RestaurantResponseDTO> highRatedRestaurants = restaurantService
+                    .findRestaurantsWithMinRating(new BigDecimal("4.0"));
+            log.info("Рестораны с высокой оценкой: {}", highRatedRestaurants.size());
+        };
+    }
+}
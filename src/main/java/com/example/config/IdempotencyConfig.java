@@ -0,0 +1,33 @@
+package com.example.config;
+
+import com.example.idempotency.IdempotencyFilter;
+import com.example.idempotency.IdempotencyStore;
+import com.example.ratelimit.ClientKeyResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    // Только создание сущностей: IDENTITY-ключи и 409 на дубль отзыва делают их повтор неидемпотентным.
+    // Пакетный импорт сюда не входит - фильтр держит тело запроса и ответа в памяти.
+    // После лимитера: повтор сверх лимита получает 429, а не сохраненный ответ
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store,
+                                                                       IdempotencyProperties properties,
+                                                                       ClientKeyResolver clientKeyResolver,
+                                                                       ObjectMapper objectMapper,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(store, properties, clientKeyResolver, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/reviews", "/api/restaurants", "/api/visitors");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+// Ключи идемпотентности: срок хранения ответа, размер кэша в памяти перед таблицей и время,
+// после которого незавершенный запрос (упавший экземпляр) перестает блокировать ключ.
+// in-progress-timeout должен быть заметно больше самой долгой записи (до 60 с ожидания в очереди
+// к пулу плюс выполнение), иначе повтор застанет живой запрос и выполнится второй раз.
+// Тело запроса читается в память для хэша, поэтому оно ограничено max-body-size, сверх - 413
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("10000") long cacheMaximumSize,
+        @DefaultValue("10m") Duration inProgressTimeout,
+        @DefaultValue("255") int maxKeyLength,
+        @DefaultValue("64KB") DataSize maxBodySize
+) {}
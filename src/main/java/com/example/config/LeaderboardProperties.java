@@ -0,0 +1,10 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Рейтинг ресторанов в памяти: интервал полной перезагрузки поверх инкрементальных обновлений
+@ConfigurationProperties(prefix = "app.leaderboard")
+public record LeaderboardProperties(
+        @DefaultValue("300000") long refreshIntervalMs
+) {}
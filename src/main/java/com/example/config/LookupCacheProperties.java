@@ -0,0 +1,14 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Настройки кэша DTO ресторанов и посетителей по id
+@ConfigurationProperties(prefix = "app.cache")
+public record LookupCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration ttl
+) {}
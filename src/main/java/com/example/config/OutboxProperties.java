@@ -0,0 +1,20 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Журнал изменений: порция релея, срок хранения опубликованных событий, файловый приемник NDJSON
+// и подписки SSE: таймаут и очередь событий на подписчика, при переполнении подписчик отключается
+@ConfigurationProperties(prefix = "app.outbox")
+public record OutboxProperties(
+        @DefaultValue("200") long relayIntervalMs,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("false") boolean fileEnabled,
+        @DefaultValue("changes.ndjson") Path filePath,
+        @DefaultValue("30m") Duration sseTimeout,
+        @DefaultValue("1000") int sseQueueCapacity
+) {}
@@ -0,0 +1,40 @@
+package com.example.config;
+
+import com.example.datasource.ConnectionWaitTracker;
+import com.example.ratelimit.ClientKeyResolver;
+import com.example.ratelimit.RateLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    // Первым в цепочке: отклоненный запрос не доходит ни до остальных фильтров, ни до БД.
+    // Actuator не ограничивается - метрики и health нужны как раз при перегрузке
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   DataSourceBulkheadProperties bulkhead,
+                                                                   ClientKeyResolver clientKeyResolver,
+                                                                   ConnectionWaitTracker waitTracker,
+                                                                   ObjectMapper objectMapper,
+                                                                   MeterRegistry meterRegistry) {
+        if (!bulkhead.enabled()) {
+            log.warn("Очередь перед пулом выключена: ожидание соединения не измеряется, "
+                    + "сброс нагрузки (503) не сработает, действуют только лимиты клиентов");
+        }
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(properties, clientKeyResolver, waitTracker, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // Сразу после CharacterEncodingFilter Spring Boot (HIGHEST_PRECEDENCE)
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+// Лимиты запросов к /api/* на клиента отдельно для чтений и записей, и пороги ожидания соединения,
+// выше которых запросы сбрасываются с 503. Клиент - ключ из api-keys, неизвестный ключ или его отсутствие -
+// адрес: иначе случайный ключ в каждом запросе давал бы новый бюджет.
+// Ожидание соединения измеряет очередь перед пулом (app.datasource.bulkhead): с выключенной очередью
+// сброс по порогам не срабатывает и остаются только лимиты клиента
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-API-Key") String apiKeyHeader,
+        @DefaultValue Set<String> apiKeys,
+        @DefaultValue("100") double readsPerSecond,
+        @DefaultValue("200") int readBurst,
+        @DefaultValue("10") double writesPerSecond,
+        @DefaultValue("20") int writeBurst,
+        @DefaultValue("100000") long maxClients,
+        @DefaultValue("10m") Duration clientIdleTimeout,
+        @DefaultValue("1s") Duration readShedWait,
+        @DefaultValue("200ms") Duration writeShedWait,
+        @DefaultValue("1s") Duration shedRetryAfter
+) {}
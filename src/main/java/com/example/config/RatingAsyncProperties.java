@@ -0,0 +1,12 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Настройки отложенного (write-behind) пересчета рейтинга ресторанов
+@ConfigurationProperties(prefix = "app.rating.async")
+public record RatingAsyncProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") long flushIntervalMs
+) {}
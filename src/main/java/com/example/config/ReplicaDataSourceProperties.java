@@ -0,0 +1,22 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Реплика для read-only транзакций. lagQuery возвращает отставание в секундах;
+// на простаивающей основной БД pg_last_xact_replay_timestamp() стареет, и чтения уходят в основную
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public record ReplicaDataSourceProperties(
+        @DefaultValue("false") boolean enabled,
+        String url,
+        String username,
+        String password,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("1000") long lagCheckIntervalMs,
+        @DefaultValue("5s") Duration pinAfterWrite,
+        @DefaultValue("SELECT CASE WHEN pg_is_in_recovery() "
+                + "THEN COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) ELSE 0 END")
+        String lagQuery
+) {}
@@ -0,0 +1,17 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Настройки поиска ресторанов: границы корзин фасета среднего чека, окно выдачи
+// и интервал полной перезагрузки индекса
+@ConfigurationProperties(prefix = "app.search")
+public record RestaurantSearchProperties(
+        @DefaultValue({"1000", "2000", "3000", "5000"}) List<BigDecimal> billBuckets,
+        @DefaultValue("100") int maxPageSize,
+        @DefaultValue("10000") int maxResultWindow,
+        @DefaultValue("300000") long refreshIntervalMs
+) {}
@@ -0,0 +1,11 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Настройки пакетного импорта отзывов
+@ConfigurationProperties(prefix = "app.import")
+public record ReviewImportProperties(
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("1000") int maxReportedErrors
+) {}
@@ -0,0 +1,31 @@
+package com.example.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class WebConfig {
+
+    // ETag по хэшу тела для списков, у которых нет дешевой версии: экономит трафик на 304,
+    // но не запрос к БД. Потоковые выгрузки NDJSON сюда не входят - фильтр буферизует ответ целиком
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns(
+                "/api/restaurants",
+                "/api/restaurants/keyset",
+                "/api/restaurants/top",
+                "/api/restaurants/top/*",
+                "/api/restaurants/search",
+                "/api/restaurants/rating-stats",
+                "/api/visitors",
+                "/api/visitors/keyset",
+                "/api/reviews",
+                "/api/reviews/keyset",
+                "/api/analytics/*");
+        return registration;
+    }
+}
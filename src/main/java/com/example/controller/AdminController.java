@@ -0,0 +1,43 @@
+package com.example.controller;
+
+import com.example.dto.AnalyticsRefreshResponseDTO;
+import com.example.dto.RatingRebuildResponseDTO;
+import com.example.service.AnalyticsRefreshService;
+import com.example.service.RestaurantRatingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Администрирование", description = "Служебные операции")
+public class AdminController {
+
+    private final RestaurantRatingService restaurantRatingService;
+    private final AnalyticsRefreshService analyticsRefreshService;
+
+    @PostMapping("/ratings/rebuild")
+    @Operation(summary = "Пересобрать агрегаты рейтинга всех ресторанов по отзывам")
+    public ResponseEntity<RatingRebuildResponseDTO> rebuildAllRatings() {
+        long startedAt = System.currentTimeMillis();
+        int updated = restaurantRatingService.rebuildAll();
+        return ResponseEntity.ok(new RatingRebuildResponseDTO(updated, System.currentTimeMillis() - startedAt));
+    }
+
+    @PostMapping("/ratings/rebuild/{restaurantId}")
+    @Operation(summary = "Пересобрать агрегаты рейтинга одного ресторана")
+    public ResponseEntity<RatingRebuildResponseDTO> rebuildRating(@PathVariable Long restaurantId) {
+        long startedAt = System.currentTimeMillis();
+        restaurantRatingService.rebuild(restaurantId);
+        return ResponseEntity.ok(new RatingRebuildResponseDTO(1, System.currentTimeMillis() - startedAt));
+    }
+
+    @PostMapping("/analytics/refresh")
+    @Operation(summary = "Пересобрать сводки аналитики вне расписания")
+    public ResponseEntity<AnalyticsRefreshResponseDTO> refreshAnalytics() {
+        return ResponseEntity.ok(new AnalyticsRefreshResponseDTO(analyticsRefreshService.refresh().toMillis()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.controller;
+
+import com.example.dto.AnalyticsOverviewDTO;
+import com.example.dto.DailyReviewsDTO;
+import com.example.dto.TopVisitorDTO;
+import com.example.service.AnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Аналитика", description = "Сводки для дашбордов, пересобираются по расписанию")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @GetMapping("/cuisines")
+    @Operation(summary = "Средний рейтинг и средний чек по видам кухни и в целом")
+    public ResponseEntity<AnalyticsOverviewDTO> getCuisineOverview() {
+        return ResponseEntity.ok(analyticsService.getOverview());
+    }
+
+    @GetMapping("/reviews/daily")
+    @Operation(summary = "Число отзывов и средняя оценка по дням")
+    public ResponseEntity<List<DailyReviewsDTO>> getDailyReviews(
+            @Parameter(description = "С какого дня (по умолчанию - окно пересчета назад от to)", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "По какой день включительно (по умолчанию - сегодня)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getDailyReviews(from, to));
+    }
+
+    @GetMapping("/visitors/top")
+    @Operation(summary = "Самые активные посетители")
+    public ResponseEntity<List<TopVisitorDTO>> getTopVisitors(
+            @Parameter(description = "Сколько вернуть", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(analyticsService.getTopVisitors(limit));
+    }
+}
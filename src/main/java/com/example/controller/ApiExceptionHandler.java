@@ -0,0 +1,42 @@
+package com.example.controller;
+
+import com.example.exception.ConflictException;
+import com.example.exception.InvalidRequestException;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// Исключения сервисов в статусы HTTP (тело - application/problem+json):
+// нет сущности - 404, конфликт с текущим состоянием данных - 409, некорректные параметры - 400.
+// Сообщение отдается клиенту только у исключений, которые сервисы бросают для него; прочие
+// IllegalStateException/IllegalArgumentException - внутренние ошибки и остаются 500
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ProblemDetail handleNotFound(EntityNotFoundException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    // Дубль отзыва
+    @ExceptionHandler(ConflictException.class)
+    public ProblemDetail handleConflict(ConflictException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    // Параллельное изменение той же строки, прочие нарушения ограничений БД
+    @ExceptionHandler({OptimisticLockingFailureException.class, DataIntegrityViolationException.class})
+    public ProblemDetail handleConcurrentChange(RuntimeException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Данные изменены параллельным запросом или нарушают ограничения, повторите запрос");
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ProblemDetail handleBadRequest(InvalidRequestException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
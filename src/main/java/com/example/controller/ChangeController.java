@@ -0,0 +1,58 @@
+package com.example.controller;
+
+import com.example.dto.ChangeEventDTO;
+import com.example.dto.CursorPageDTO;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.SseChangeSink;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Tag(name = "Изменения", description = "Журнал изменений ресторанов, посетителей, отзывов и рейтингов")
+public class ChangeController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ChangeOutbox changeOutbox;
+    private final SseChangeSink sseChangeSink;
+
+    // nextCursor - смещение для следующего запроса, если порция полная; иначе клиент
+    // опрашивает дальше с offset последнего полученного события
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Получить изменения после заданного смещения")
+    public ResponseEntity<CursorPageDTO<ChangeEventDTO>> getChanges(
+            @Parameter(description = "Смещение, после которого начинается порция", example = "0")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Размер порции", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<ChangeEventDTO> events = changeOutbox.readAfter(since, size);
+        String nextCursor = events.size() == size
+                ? String.valueOf(events.get(events.size() - 1).offset())
+                : null;
+        return ResponseEntity.ok(new CursorPageDTO<>(events, nextCursor, null));
+    }
+
+    // Last-Event-ID при переподключении имеет приоритет над since из исходного URL
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Подписаться на изменения (Server-Sent Events)")
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return sseChangeSink.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
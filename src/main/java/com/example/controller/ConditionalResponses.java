@@ -0,0 +1,35 @@
+package com.example.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Условные GET по версии данных: ETag считается дешевым запросом версии, и при совпадении
+// с If-None-Match тело не читается и не сериализуется. Версия читается до тела,
+// поэтому ETag никогда не новее отданного представления.
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static String etag(String kind, Object... parts) {
+        StringBuilder etag = new StringBuilder("\"").append(kind);
+        for (Object part : parts) {
+            etag.append('-').append(part);
+        }
+        return etag.append('"').toString();
+    }
+
+    static <T> ResponseEntity<T> ok(WebRequest request, Optional<String> etag, Supplier<T> body) {
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        T content = body.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        etag.ifPresent(response::eTag);
+        return response.body(content);
+    }
+}
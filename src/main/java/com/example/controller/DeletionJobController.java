@@ -0,0 +1,39 @@
+package com.example.controller;
+
+import com.example.dto.DeletionJobDTO;
+import com.example.service.DeletionJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/deletions")
+@RequiredArgsConstructor
+@Tag(name = "Удаления", description = "Статус фоновых удалений посетителей и ресторанов")
+public class DeletionJobController {
+
+    private final DeletionJobService deletionJobService;
+
+    // Ответ на DELETE ...?async=true: 202 со ссылкой на статус задания
+    static ResponseEntity<DeletionJobDTO> accepted(DeletionJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/deletions/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Статус фонового удаления")
+    public ResponseEntity<DeletionJobDTO> getJob(@PathVariable String jobId) {
+        return deletionJobService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new EntityNotFoundException("Задание удаления не найдено: " + jobId));
+    }
+}
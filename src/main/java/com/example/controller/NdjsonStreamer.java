@@ -0,0 +1,38 @@
+package com.example.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// Отдает элементы построчно в формате NDJSON по мере чтения из БД, не собирая весь список в памяти
+@Component
+@RequiredArgsConstructor
+public class NdjsonStreamer {
+
+    private final ObjectMapper objectMapper;
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody body = outputStream -> source.accept(item -> {
+            try {
+                writer.writeValue(outputStream, item);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
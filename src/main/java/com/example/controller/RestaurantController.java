@@ -1,7 +1,17 @@
 package com.example.controller;
 
+import com.example.dto.CursorPageDTO;
+import com.example.dto.DeletionJobDTO;
+import com.example.dto.RatingStatsDTO;
 import com.example.dto.RestaurantRequestDTO;
 import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.RestaurantSearchResultDTO;
+import com.example.entity.CuisineType;
+import com.example.service.DeletionJobService;
+import com.example.service.RatingStatisticsService;
+import com.example.service.RestaurantLeaderboardService;
+import com.example.service.RestaurantSearchQuery;
+import com.example.service.RestaurantSearchService;
 import com.example.service.RestaurantService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,11 +19,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/restaurants")
@@ -22,6 +36,11 @@ import java.util.List;
 public class RestaurantController {
 
     private final RestaurantService restaurantService;
+    private final RestaurantLeaderboardService leaderboardService;
+    private final RestaurantSearchService searchService;
+    private final RatingStatisticsService ratingStatisticsService;
+    private final DeletionJobService deletionJobService;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @PostMapping
     @Operation(summary = "Создание ресторанчика")
@@ -37,14 +56,85 @@ public class RestaurantController {
         return ResponseEntity.ok(restaurants);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Получить ресторанчики по списку айди")
+    public ResponseEntity<List<RestaurantResponseDTO>> getRestaurantsByIds(
+            @Parameter(description = "Айди через запятую, не более 1000", example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(restaurantService.findAllById(ids));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Выгрузить все ресторанчики потоком NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAllRestaurants() {
+        return ndjsonStreamer.stream(restaurantService::streamAll);
+    }
+
+    @GetMapping("/keyset")
+    @Operation(summary = "Получить ресторанчики порцией после заданного айди")
+    public ResponseEntity<CursorPageDTO<RestaurantResponseDTO>> getRestaurantsAfter(
+            @Parameter(description = "Айди, после которого начинается порция", example = "0")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер порции", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(restaurantService.findPageAfter(after, limit));
+    }
+
+    @GetMapping("/top")
+    @Operation(summary = "Топ ресторанчиков по рейтингу")
+    public ResponseEntity<List<RestaurantResponseDTO>> getTopRestaurants(
+            @Parameter(description = "Сколько вернуть (не более 100)", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(leaderboardService.top(limit));
+    }
+
+    @GetMapping("/top/{cuisineType}")
+    @Operation(summary = "Топ ресторанчиков по рейтингу для вида кухни")
+    public ResponseEntity<List<RestaurantResponseDTO>> getTopRestaurantsByCuisine(
+            @PathVariable CuisineType cuisineType,
+            @Parameter(description = "Сколько вернуть (не более 100)", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(leaderboardService.top(cuisineType, limit));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Поиск ресторанчиков по названию и описанию с фасетами")
+    public ResponseEntity<RestaurantSearchResultDTO> searchRestaurants(
+            @Parameter(description = "Слова для поиска, каждое ищется как префикс", example = "пицца")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Виды кухни (можно несколько)")
+            @RequestParam(required = false) Set<CuisineType> cuisineType,
+            @RequestParam(required = false) BigDecimal minBill,
+            @RequestParam(required = false) BigDecimal maxBill,
+            @RequestParam(required = false) BigDecimal minRating,
+            @RequestParam(required = false) BigDecimal maxRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        RestaurantSearchQuery query = new RestaurantSearchQuery(
+                q, cuisineType, minBill, maxBill, minRating, maxRating, page, size);
+        return ResponseEntity.ok(searchService.search(query));
+    }
+
+    @GetMapping("/rating-stats")
+    @Operation(summary = "Статистика оценок сразу для нескольких ресторанчиков")
+    public ResponseEntity<List<RatingStatsDTO>> getRatingStats(
+            @Parameter(description = "Айди ресторанчиков (не более 1000)", example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(ratingStatisticsService.getStats(ids));
+    }
+
+    @GetMapping("/{id}/rating-stats")
+    @Operation(summary = "Распределение оценок, медиана и доля оценок 4+ для ресторанчика")
+    public ResponseEntity<RatingStatsDTO> getRatingStats(@PathVariable Long id) {
+        return ResponseEntity.ok(ratingStatisticsService.getStats(id));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Получить ресторанчик по его айди")
-    public ResponseEntity<RestaurantResponseDTO> getRestaurantById(@PathVariable Long id) {
-        RestaurantResponseDTO restaurant = restaurantService.findById(id);
-        if (restaurant != null) {
-            return ResponseEntity.ok(restaurant);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<RestaurantResponseDTO> getRestaurantById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ok(request,
+                restaurantService.findVersion(id).map(version -> ConditionalResponses.etag("restaurant", id, version)),
+                () -> restaurantService.findById(id));
     }
 
     @PutMapping("/{id}")
@@ -61,7 +151,13 @@ public class RestaurantController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Удалить ресторанчик по его айди")
-    public ResponseEntity<Void> deleteRestaurant(@PathVariable Long id) {
+    public ResponseEntity<DeletionJobDTO> deleteRestaurant(
+            @PathVariable Long id,
+            @Parameter(description = "Удалить в фоне порциями: 202 и задание со статусом вместо ожидания")
+            @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return DeletionJobController.accepted(deletionJobService.deleteRestaurant(id));
+        }
         boolean deleted = restaurantService.delete(id);
         if (deleted) {
             return ResponseEntity.noContent().build();
@@ -1,7 +1,13 @@
 package com.example.controller;
 
+import com.example.dto.BulkImportReportDTO;
+import com.example.dto.CursorPageDTO;
 import com.example.dto.ReviewRequestDTO;
 import com.example.dto.ReviewResponseDTO;
+import com.example.dto.ReviewsFingerprintDTO;
+import com.example.service.ReviewExpansionService;
+import com.example.service.ReviewExpansionService.Expansion;
+import com.example.service.ReviewImportService;
 import com.example.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,10 +16,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -22,6 +38,9 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ReviewImportService reviewImportService;
+    private final ReviewExpansionService reviewExpansionService;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @PostMapping
     @Operation(summary = "Создать отзыв")
@@ -30,6 +49,13 @@ public class ReviewController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdReview);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Пакетный импорт отзывов: JSON-массив или NDJSON")
+    public ResponseEntity<BulkImportReportDTO> importReviews(InputStream body) throws IOException {
+        BulkImportReportDTO report = reviewImportService.importReviews(body);
+        return ResponseEntity.ok(report);
+    }
+
     @GetMapping
     @Operation(summary = "Получить все отзывы")
     public ResponseEntity<List<ReviewResponseDTO>> getAllReviews() {
@@ -37,13 +63,42 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Выгрузить все отзывы потоком NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAllReviews() {
+        return ndjsonStreamer.stream(reviewService::streamAll);
+    }
+
+    @GetMapping("/keyset")
+    @Operation(summary = "Получить отзывы порцией после заданного ключа")
+    public ResponseEntity<CursorPageDTO<ReviewResponseDTO>> getReviewsAfter(
+            @Parameter(description = "Курсор visitorId:restaurantId из предыдущей порции", example = "1:1")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Размер порции", example = "100")
+            @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Раскрыть связанные сущности: restaurant, visitor", example = "restaurant,visitor")
+            @RequestParam(required = false) List<String> expand) {
+        Set<Expansion> expansions = ReviewExpansionService.parse(expand);
+        return ResponseEntity.ok(reviewExpansionService.expand(reviewService.findPageAfter(after, limit), expansions));
+    }
+
     @GetMapping("/visitor/{visitorId}/restaurant/{restaurantId}")
     @Operation(summary = "Получить отзыв по айди")
     public ResponseEntity<ReviewResponseDTO> getReview(
             @PathVariable Long visitorId,
-            @PathVariable Long restaurantId) {
-        ReviewResponseDTO review = reviewService.findById(visitorId, restaurantId);
-        return ResponseEntity.ok(review);
+            @PathVariable Long restaurantId,
+            @Parameter(description = "Раскрыть связанные сущности: restaurant, visitor", example = "restaurant,visitor")
+            @RequestParam(required = false) List<String> expand,
+            WebRequest request) {
+        Set<Expansion> expansions = ReviewExpansionService.parse(expand);
+        if (!expansions.isEmpty()) {
+            return ResponseEntity.ok(reviewExpansionService.expand(
+                    reviewService.findById(visitorId, restaurantId), expansions));
+        }
+        return ConditionalResponses.ok(request,
+                reviewService.findVersion(visitorId, restaurantId)
+                        .map(version -> ConditionalResponses.etag("review", visitorId, restaurantId, version)),
+                () -> reviewService.findById(visitorId, restaurantId));
     }
 
     @PutMapping("/visitor/{visitorId}/restaurant/{restaurantId}")
@@ -51,7 +106,13 @@ public class ReviewController {
     public ResponseEntity<ReviewResponseDTO> updateReview(
             @PathVariable Long visitorId,
             @PathVariable Long restaurantId,
+            @Parameter(description = "Создать отзыв, если его еще нет (201 вместо 404)")
+            @RequestParam(defaultValue = "false") boolean upsert,
             @Valid @RequestBody ReviewRequestDTO reviewRequestDTO) {
+        if (upsert) {
+            ReviewService.Upserted result = reviewService.upsert(visitorId, restaurantId, reviewRequestDTO);
+            return ResponseEntity.status(result.created() ? HttpStatus.CREATED : HttpStatus.OK).body(result.review());
+        }
         ReviewResponseDTO updatedReview = reviewService.update(visitorId, restaurantId, reviewRequestDTO);
         return ResponseEntity.ok(updatedReview);
     }
@@ -77,11 +138,40 @@ public class ReviewController {
             @Parameter(description = "Sort by field", example = "rating")
             @RequestParam(defaultValue = "rating") String sortBy,
             @Parameter(description = "Sort direction (asc/desc)", example = "asc")
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Раскрыть связанные сущности: restaurant, visitor", example = "restaurant,visitor")
+            @RequestParam(required = false) List<String> expand,
+            WebRequest request) {
 
-        Page<ReviewResponseDTO> reviews = reviewService.getReviewsByRestaurant(
-                restaurantId, page, size, sortBy, direction);
-        return ResponseEntity.ok(reviews);
+        Set<Expansion> expansions = ReviewExpansionService.parse(expand);
+        return ConditionalResponses.ok(request,
+                reviewsPageEtag(restaurantId, expansions, "page", page, size, sortBy, direction),
+                () -> reviewExpansionService.expand(
+                        reviewService.getReviewsByRestaurant(restaurantId, page, size, sortBy, direction), expansions));
+    }
+
+    // Seek-пагинация по оценке с непрозрачным курсором, без OFFSET и count(*)
+    @GetMapping("/restaurant/{restaurantId}/scroll")
+    @Operation(summary = "Получить отзывы ресторана порцией по курсору с сортировкой по оценке")
+    public ResponseEntity<CursorPageDTO<ReviewResponseDTO>> scrollReviewsByRestaurant(
+            @PathVariable Long restaurantId,
+            @Parameter(description = "Курсор nextCursor из предыдущей порции")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер порции", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean ascending,
+            @Parameter(description = "Вернуть оценку общего числа отзывов")
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @Parameter(description = "Раскрыть связанные сущности: restaurant, visitor", example = "restaurant,visitor")
+            @RequestParam(required = false) List<String> expand,
+            WebRequest request) {
+
+        Set<Expansion> expansions = ReviewExpansionService.parse(expand);
+        return ConditionalResponses.ok(request,
+                reviewsPageEtag(restaurantId, expansions, "scroll", cursor, size, ascending, withTotal),
+                () -> reviewExpansionService.expand(
+                        reviewService.scrollReviewsByRestaurant(restaurantId, cursor, size, ascending, withTotal),
+                        expansions));
     }
 
     // Пагинация с сортировкой по рейтингу
@@ -91,10 +181,32 @@ public class ReviewController {
             @PathVariable Long restaurantId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "true") boolean ascending) {
+            @RequestParam(defaultValue = "true") boolean ascending,
+            @Parameter(description = "Раскрыть связанные сущности: restaurant, visitor", example = "restaurant,visitor")
+            @RequestParam(required = false) List<String> expand,
+            WebRequest request) {
 
-        Page<ReviewResponseDTO> reviews = reviewService.getReviewsByRestaurantSortedByRating(
-                restaurantId, page, size, ascending);
-        return ResponseEntity.ok(reviews);
+        Set<Expansion> expansions = ReviewExpansionService.parse(expand);
+        return ConditionalResponses.ok(request,
+                reviewsPageEtag(restaurantId, expansions, "sorted", page, size, ascending),
+                () -> reviewExpansionService.expand(
+                        reviewService.getReviewsByRestaurantSortedByRating(restaurantId, page, size, ascending),
+                        expansions));
+    }
+
+    // ETag страницы отзывов: отпечаток всех отзывов ресторана (число и последнее изменение)
+    // плюс хэш параметров страницы; один агрегирующий запрос по индексу вместо выборки страницы.
+    // Раскрытые ресторан и посетители меняются независимо от отзывов, поэтому с expand ETag не отдается
+    private Optional<String> reviewsPageEtag(Long restaurantId, Set<Expansion> expansions, String kind,
+                                             Object... params) {
+        if (!expansions.isEmpty()) {
+            return Optional.empty();
+        }
+        ReviewsFingerprintDTO fingerprint = reviewService.getReviewsFingerprint(restaurantId);
+        long lastUpdated = fingerprint.lastUpdated() == null
+                ? 0
+                : ChronoUnit.MICROS.between(Instant.EPOCH, fingerprint.lastUpdated());
+        return Optional.of(ConditionalResponses.etag("reviews-" + kind, restaurantId, fingerprint.count(), lastUpdated,
+                Integer.toHexString(Arrays.hashCode(params))));
     }
 }
\ No newline at end of file
@@ -1,15 +1,24 @@
 package com.example.controller;
 
+import com.example.dto.CursorPageDTO;
+import com.example.dto.DeletionJobDTO;
 import com.example.dto.VisitorRequestDTO;
 import com.example.dto.VisitorResponseDTO;
+import com.example.dto.VisitorReviewDTO;
+import com.example.service.DeletionJobService;
+import com.example.service.ReviewService;
 import com.example.service.VisitorService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,6 +29,9 @@ import java.util.List;
 public class VisitorController {
 
     private final VisitorService visitorService;
+    private final ReviewService reviewService;
+    private final DeletionJobService deletionJobService;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @PostMapping
     @Operation(summary = "Создать посетителя")
@@ -35,14 +47,46 @@ public class VisitorController {
         return ResponseEntity.ok(visitors);
     }
 
+    // POST, а не GET: длинный список айди не упирается в лимит длины URL
+    @PostMapping("/batch")
+    @Operation(summary = "Получить посетителей по списку айди (не более 1000)")
+    public ResponseEntity<List<VisitorResponseDTO>> getVisitorsByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(visitorService.findAllById(ids));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Выгрузить всех посетителей потоком NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAllVisitors() {
+        return ndjsonStreamer.stream(visitorService::streamAll);
+    }
+
+    @GetMapping("/keyset")
+    @Operation(summary = "Получить посетителей порцией после заданного айди")
+    public ResponseEntity<CursorPageDTO<VisitorResponseDTO>> getVisitorsAfter(
+            @Parameter(description = "Айди, после которого начинается порция", example = "0")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер порции", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(visitorService.findPageAfter(after, limit));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Получить посетителя по айди")
-    public ResponseEntity<VisitorResponseDTO> getVisitorById(@PathVariable Long id) {
-        VisitorResponseDTO visitor = visitorService.findById(id);
-        if (visitor != null) {
-            return ResponseEntity.ok(visitor);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<VisitorResponseDTO> getVisitorById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ok(request,
+                visitorService.findVersion(id).map(version -> ConditionalResponses.etag("visitor", id, version)),
+                () -> visitorService.findById(id));
+    }
+
+    @GetMapping("/{id}/reviews")
+    @Operation(summary = "История отзывов посетителя, новые первыми, порцией по курсору")
+    public ResponseEntity<CursorPageDTO<VisitorReviewDTO>> getVisitorReviews(
+            @PathVariable Long id,
+            @Parameter(description = "Курсор nextCursor из предыдущей порции")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер порции", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reviewService.findVisitorHistory(id, cursor, size));
     }
 
     @PutMapping("/{id}")
@@ -59,7 +103,13 @@ public class VisitorController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Удалить посетителя по айди")
-    public ResponseEntity<Void> deleteVisitor(@PathVariable Long id) {
+    public ResponseEntity<DeletionJobDTO> deleteVisitor(
+            @PathVariable Long id,
+            @Parameter(description = "Удалить в фоне порциями: 202 и задание со статусом вместо ожидания")
+            @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return DeletionJobController.accepted(deletionJobService.deleteVisitor(id));
+        }
         boolean deleted = visitorService.delete(id);
         if (deleted) {
             return ResponseEntity.noContent().build();
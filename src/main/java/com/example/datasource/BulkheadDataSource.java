@@ -0,0 +1,155 @@
+package com.example.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Справедливый семафор перед пулом соединений.
+// Потоков (особенно виртуальных) может быть на порядки больше, чем соединений в пуле:
+// без очереди они толпятся в Hikari и отваливаются по connection-timeout.
+// Здесь ожидающие встают в FIFO-очередь со своим, более длинным таймаутом,
+// а в пул идет не больше потоков, чем разрешений. Разрешение выдается потоку, а не соединению:
+// вложенное соединение того же потока (REQUIRES_NEW, JdbcTemplate вне транзакции) идет без очереди,
+// иначе поток, занявший последнее разрешение, ждал бы сам себя. Разрешение возвращается,
+// когда поток закрывает последнее свое соединение.
+// Обертка заменяет бин пула, поэтому при остановке контекста закрывает пул сама: иначе соединения
+// и служебные потоки Hikari пережили бы контекст
+public class BulkheadDataSource extends DelegatingDataSource implements Closeable {
+
+    private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    private final ConnectionWaitTracker waitTracker;
+
+    public BulkheadDataSource(DataSource target, String poolName, int permits, Duration acquireTimeout,
+                              MeterRegistry meterRegistry, ConnectionWaitTracker waitTracker) {
+        super(target);
+        this.waitTracker = waitTracker;
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.waitTimer = Timer.builder("app.datasource.bulkhead.wait")
+                .description("Ожидание разрешения на соединение")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("app.datasource.bulkhead.rejected")
+                .description("Запросы соединения, не дождавшиеся очереди")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        Gauge.builder("app.datasource.bulkhead.waiting", this.permits, Semaphore::getQueueLength)
+                .description("Потоки в очереди за соединением")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger open = enter();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(), open);
+        } catch (SQLException | RuntimeException e) {
+            leave(open);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger open = enter();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(username, password), open);
+        } catch (SQLException | RuntimeException e) {
+            leave(open);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof AutoCloseable target) {
+            try {
+                target.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    // Счетчик открытых соединений потока; в очередь встает только первое из них
+    private AtomicInteger enter() throws SQLException {
+        AtomicInteger open = openConnections.get();
+        if (open.get() == 0) {
+            acquire();
+        }
+        open.incrementAndGet();
+        return open;
+    }
+
+    // Счетчик захвачен при открытии: соединение могут закрыть и из другого потока
+    private void leave(AtomicInteger open) {
+        if (open.decrementAndGet() == 0) {
+            permits.release();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения прервано", e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            waitTimer.record(waited, TimeUnit.NANOSECONDS);
+            waitTracker.record(waited);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("Соединение не получено за "
+                    + Duration.ofNanos(acquireTimeoutNanos).toMillis() + " мс: очередь к пулу переполнена");
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, AtomicInteger open) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            leave(open);
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Скользящее среднее ожидания соединения по очереди BulkheadDataSource - сигнал перегрузки пула
+// для сброса нагрузки. Без новых замеров дольше STALE_AFTER среднее считается устаревшим:
+// простаивающий пул не перегружен, даже если последние ожидания были долгими
+public class ConnectionWaitTracker {
+
+    private static final long STALE_AFTER_NANOS = Duration.ofSeconds(1).toNanos();
+    // Вес нового замера 1/8: один долгий запрос не включает сброс, устойчивая очередь - включает за несколько запросов
+    private static final int SMOOTHING = 8;
+
+    private final AtomicLong averageNanos = new AtomicLong();
+    private volatile long lastSampleAt = System.nanoTime();
+
+    public void record(long waitNanos) {
+        averageNanos.accumulateAndGet(waitNanos, (average, sample) -> average + (sample - average) / SMOOTHING);
+        lastSampleAt = System.nanoTime();
+    }
+
+    public Duration recentWait() {
+        if (System.nanoTime() - lastSampleAt > STALE_AFTER_NANOS) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(averageNanos.get());
+    }
+}
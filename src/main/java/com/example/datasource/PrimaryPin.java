@@ -0,0 +1,36 @@
+package com.example.datasource;
+
+// Привязка текущего потока к основной БД: пока она действует, даже read-only транзакции
+// не уходят на реплику. Нужна там, где читается только что записанное.
+public final class PrimaryPin {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryPin() {
+    }
+
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    public static void onPrimary(Runnable action) {
+        boolean previous = pin();
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static boolean pin() {
+        boolean previous = isPinned();
+        PINNED.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(boolean previous) {
+        if (!previous) {
+            PINNED.remove();
+        }
+    }
+}
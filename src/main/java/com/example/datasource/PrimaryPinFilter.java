@@ -0,0 +1,68 @@
+package com.example.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Read-your-writes для клиента: после изменяющего запроса он получает cookie со сроком,
+// и до его истечения его чтения идут в основную БД. Внутри самого изменяющего запроса
+// чтения тоже идут в основную БД.
+public class PrimaryPinFilter extends OncePerRequestFilter {
+    public static final String COOKIE = "db-primary-until";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration pinAfterWrite;
+
+    public PrimaryPinFilter(Duration pinAfterWrite) {
+        this.pinAfterWrite = pinAfterWrite;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write && !pinAfterWrite.isZero()) {
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + pinAfterWrite.toMillis()));
+            cookie.setMaxAge((int) Math.max(pinAfterWrite.toSeconds(), 1));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+
+        if (!write && !pinnedByCookie(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean previous = PrimaryPin.pin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PrimaryPin.restore(previous);
+        }
+    }
+
+    private boolean pinnedByCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Источник соединений для read-only транзакций: реплика, если она догнала основную БД
+// и поток не привязан к основной после записи, иначе основная БД
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter toPrimary;
+    private final Counter toReplica;
+
+    public ReadOnlyRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                     MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.toPrimary = Counter.builder("app.datasource.read.routing").tag("target", "primary").register(meterRegistry);
+        this.toReplica = Counter.builder("app.datasource.read.routing").tag("target", "replica").register(meterRegistry);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PrimaryPin.isPinned() || !lagMonitor.isWithinTolerance()) {
+            toPrimary.increment();
+            return Target.PRIMARY;
+        }
+        toReplica.increment();
+        return Target.REPLICA;
+    }
+}
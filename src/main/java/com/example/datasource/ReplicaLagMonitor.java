@@ -0,0 +1,55 @@
+package com.example.datasource;
+
+import com.example.config.ReplicaDataSourceProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+// Периодически меряет отставание реплики. Пока проверка не проходила, результат устарел
+// или отставание больше app.datasource.replica.max-lag, чтения идут в основную БД.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replica;
+    private final ReplicaDataSourceProperties properties;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long checkedAtNanos;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.properties = properties;
+        Gauge.builder("app.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Отставание реплики по последней проверке")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        try {
+            Double lag = replica.queryForObject(properties.lagQuery(), Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            checkedAtNanos = System.nanoTime();
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            log.warn("Не удалось проверить отставание реплики, чтения идут в основную БД: {}", e.getMessage());
+        }
+    }
+
+    public boolean isWithinTolerance() {
+        double lag = lagSeconds;
+        if (Double.isNaN(lag)) {
+            return false;
+        }
+        long age = System.nanoTime() - checkedAtNanos;
+        return age <= TimeUnit.MILLISECONDS.toNanos(properties.lagCheckIntervalMs() * 3)
+                && lag * 1000 <= properties.maxLag().toMillis();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+// Общие показатели и разбивка по видам кухни на момент refreshedAt
+public record AnalyticsOverviewDTO(
+        long restaurantCount,
+        long reviewCount,
+        BigDecimal averageRating,
+        BigDecimal averageBill,
+        List<CuisineAnalyticsDTO> cuisines,
+        Instant refreshedAt
+) {}
@@ -0,0 +1,3 @@
+package com.example.dto;
+
+public record AnalyticsRefreshResponseDTO(long durationMs) {}
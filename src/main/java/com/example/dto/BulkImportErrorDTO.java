@@ -0,0 +1,8 @@
+package com.example.dto;
+
+public record BulkImportErrorDTO(
+        long row,
+        Long visitorId,
+        Long restaurantId,
+        String message
+) {}
@@ -0,0 +1,13 @@
+package com.example.dto;
+
+import java.util.List;
+
+public record BulkImportReportDTO(
+        long received,
+        long imported,
+        long failed,
+        List<BulkImportErrorDTO> errors,
+        boolean errorsTruncated,
+        long durationMs,
+        double rowsPerSecond
+) {}
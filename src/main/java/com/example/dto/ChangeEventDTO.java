@@ -0,0 +1,17 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// Событие журнала изменений. offset - позиция для продолжения (since), payload - состояние сущности
+// после изменения в том же JSON, что отдает REST; у удалений и изменений рейтинга его нет
+public record ChangeEventDTO(
+        long offset,
+        String entityType,
+        String entityId,
+        String changeType,
+        @JsonRawValue @JsonInclude(JsonInclude.Include.NON_NULL) String payload,
+        Instant occurredAt
+) {}
@@ -0,0 +1,14 @@
+package com.example.dto;
+
+import com.example.entity.CuisineType;
+
+import java.math.BigDecimal;
+
+// Средние по виду кухни: averageRating взвешен по числу отзывов, averageBill - по ресторанам
+public record CuisineAnalyticsDTO(
+        CuisineType cuisineType,
+        long restaurantCount,
+        long reviewCount,
+        BigDecimal averageRating,
+        BigDecimal averageBill
+) {}
@@ -0,0 +1,14 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Страница keyset-пагинации: nextCursor передается в следующий запрос, null - данных больше нет.
+// totalEstimate заполняется только по запросу и берется из счетчиков, а не из count(*)
+public record CursorPageDTO<T>(
+        List<T> content,
+        String nextCursor,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long totalEstimate
+) {}
@@ -0,0 +1,10 @@
+package com.example.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyReviewsDTO(
+        LocalDate date,
+        long reviewCount,
+        BigDecimal averageRating
+) {}
@@ -0,0 +1,21 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// Статус фонового удаления посетителя или ресторана вместе с отзывами
+public record DeletionJobDTO(
+        String id,
+        String entityType,
+        Long entityId,
+        Status status,
+        long reviewsDeleted,
+        Instant submittedAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Instant finishedAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String error
+) {
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+// Корзина диапазонного фасета: [from, to), открытая граница - null
+public record FacetBucketDTO(
+        String key,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        BigDecimal from,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        BigDecimal to,
+        long count
+) {}
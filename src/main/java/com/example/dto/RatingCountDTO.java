@@ -0,0 +1,8 @@
+package com.example.dto;
+
+// Строка сгруппированного запроса: сколько отзывов с данной оценкой у ресторана
+public record RatingCountDTO(
+        Long restaurantId,
+        Integer rating,
+        Long count
+) {}
@@ -0,0 +1,6 @@
+package com.example.dto;
+
+public record RatingRebuildResponseDTO(
+        int restaurantsUpdated,
+        long durationMs
+) {}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Распределение оценок ресторана: histogram содержит все оценки 1..5, включая нулевые.
+// positivePercent - доля оценок 4 и 5 в процентах
+public record RatingStatsDTO(
+        Long restaurantId,
+        long total,
+        Map<Integer, Long> histogram,
+        BigDecimal average,
+        BigDecimal median,
+        BigDecimal positivePercent
+) {}
@@ -0,0 +1,18 @@
+package com.example.dto;
+
+import com.example.entity.CuisineType;
+
+import java.util.List;
+import java.util.Map;
+
+// Результат поиска: страница ресторанов и счетчики фасетов.
+// Счетчик фасета учитывает все фильтры, кроме фильтра самого этого фасета
+public record RestaurantSearchResultDTO(
+        List<RestaurantResponseDTO> content,
+        long total,
+        int page,
+        int size,
+        Map<CuisineType, Long> cuisineTypes,
+        List<FacetBucketDTO> averageBill,
+        List<FacetBucketDTO> rating
+) {}
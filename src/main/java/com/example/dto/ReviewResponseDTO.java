@@ -1,10 +1,24 @@
 package com.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.io.Serializable;
 
+// visitor и restaurant заполняются только по expand=visitor,restaurant, иначе не попадают в JSON
 public record ReviewResponseDTO(
         Long visitorId,
         Long restaurantId,
         Integer rating,
-        String reviewText
-) implements Serializable {}
\ No newline at end of file
+        String reviewText,
+        @JsonInclude(JsonInclude.Include.NON_NULL) VisitorResponseDTO visitor,
+        @JsonInclude(JsonInclude.Include.NON_NULL) RestaurantResponseDTO restaurant
+) implements Serializable {
+
+    public ReviewResponseDTO(Long visitorId, Long restaurantId, Integer rating, String reviewText) {
+        this(visitorId, restaurantId, rating, reviewText, null, null);
+    }
+
+    public ReviewResponseDTO withRelated(VisitorResponseDTO visitor, RestaurantResponseDTO restaurant) {
+        return new ReviewResponseDTO(visitorId, restaurantId, rating, reviewText, visitor, restaurant);
+    }
+}
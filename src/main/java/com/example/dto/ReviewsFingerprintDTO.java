@@ -0,0 +1,9 @@
+package com.example.dto;
+
+import java.time.Instant;
+
+// Число отзывов ресторана и время последнего изменения среди них
+public record ReviewsFingerprintDTO(
+        long count,
+        Instant lastUpdated
+) {}
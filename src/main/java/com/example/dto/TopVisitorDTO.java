@@ -0,0 +1,10 @@
+package com.example.dto;
+
+import java.math.BigDecimal;
+
+public record TopVisitorDTO(
+        Long visitorId,
+        String name,
+        long reviewCount,
+        BigDecimal averageRating
+) {}
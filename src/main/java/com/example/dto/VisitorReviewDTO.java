@@ -0,0 +1,12 @@
+package com.example.dto;
+
+import java.time.Instant;
+
+// Строка истории отзывов посетителя: название ресторана приходит соединением в том же запросе
+public record VisitorReviewDTO(
+        Long restaurantId,
+        String restaurantName,
+        Integer rating,
+        String reviewText,
+        Instant createdAt
+) {}
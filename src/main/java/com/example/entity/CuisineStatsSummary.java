@@ -0,0 +1,34 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+// Сводка по виду кухни; пишется только пересборкой аналитики, Hibernate ее не изменяет
+@Entity
+@Immutable
+@Table(name = "analytics_cuisine_stats")
+@Getter
+@NoArgsConstructor
+public class CuisineStatsSummary {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private CuisineType cuisineType;
+
+    @Column(nullable = false)
+    private Long restaurantCount;
+
+    @Column(nullable = false)
+    private Long reviewCount;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalBill;
+}
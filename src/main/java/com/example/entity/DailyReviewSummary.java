@@ -0,0 +1,26 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+// Число отзывов и сумма оценок за день
+@Entity
+@Immutable
+@Table(name = "analytics_daily_reviews")
+@Getter
+@NoArgsConstructor
+public class DailyReviewSummary {
+
+    @Id
+    private LocalDate reviewDate;
+
+    @Column(nullable = false)
+    private Long reviewCount;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+}
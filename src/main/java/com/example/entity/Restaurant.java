@@ -2,14 +2,22 @@ package com.example.entity;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Entity
 @Table(name = "restaurants")
-@Data
+@Getter
+@Setter
+@ToString(exclude = "reviews") // ленивые связи не подгружаются при логировании
 @NoArgsConstructor
 @AllArgsConstructor
 public class Restaurant {
@@ -34,6 +42,25 @@ public class Restaurant {
     @Column(precision = 3, scale = 2)
     private BigDecimal rating = BigDecimal.ZERO;
 
-    @OneToMany(mappedBy = "restaurant", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Агрегаты для инкрементального пересчета рейтинга без загрузки всех отзывов
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long reviewCount = 0L;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long ratingSum = 0L;
+
+    // Версия для оптимистичной блокировки и ETag; updatedAt - для условных запросов по времени
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    // Без каскада: отзывы удаляет сервис множественными DELETE порциями, а не по одной загруженной сущности
+    @OneToMany(mappedBy = "restaurant", fetch = FetchType.LAZY)
     private List<Review> reviews;
 }
\ No newline at end of file
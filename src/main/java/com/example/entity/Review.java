@@ -2,13 +2,28 @@ package com.example.entity;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "reviews")
-@IdClass(ReviewId.class) // Составной ключ
-@Data
+@Table(name = "reviews", indexes = {
+        // Страницы отзывов ресторана с сортировкой по оценке читаются диапазоном по этому индексу
+        @Index(name = "idx_reviews_restaurant_rating_visitor", columnList = "restaurant_id, rating, visitor_id"),
+        // История отзывов посетителя, новые первыми
+        @Index(name = "idx_reviews_visitor_created", columnList = "visitor_id, created_at DESC, restaurant_id DESC")
+})
+// Составной ключ. Порядок колонок первичного ключа (visitor_id, restaurant_id) задан миграцией V1,
+// из @IdClass он не выводится: отзывы посетителя читаются префиксом ключа, отзывы ресторана - индексами выше
+@IdClass(ReviewId.class)
+@Getter
+@Setter
+@ToString(exclude = {"visitor", "restaurant"}) // ленивые связи не подгружаются при логировании
 @NoArgsConstructor
 @AllArgsConstructor
 public class Review {
@@ -28,5 +43,17 @@ public class Review {
 
     @Column(length = 1000)
     private String reviewText;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
 }
 
@@ -0,0 +1,27 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+// Самые активные посетители на момент пересборки аналитики
+@Entity
+@Immutable
+@Table(name = "analytics_top_visitors")
+@Getter
+@NoArgsConstructor
+public class TopVisitorSummary {
+
+    @Id
+    private Long visitorId;
+
+    @Column(nullable = false, length = 100)
+    private String visitorName;
+
+    @Column(nullable = false)
+    private Long reviewCount;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+}
@@ -2,13 +2,20 @@ package com.example.entity;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 import java.util.List;
 
 @Entity
 @Table(name = "visitors")
-@Data
+@Getter
+@Setter
+@ToString(exclude = "reviews") // ленивые связи не подгружаются при логировании
 @NoArgsConstructor
 @AllArgsConstructor
 public class Visitor {
@@ -26,6 +33,14 @@ public class Visitor {
     @Column(nullable = false, length = 10)
     private String gender;
 
-    @OneToMany(mappedBy = "visitor", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @OneToMany(mappedBy = "visitor", fetch = FetchType.LAZY)
     private List<Review> reviews;
 }
\ No newline at end of file
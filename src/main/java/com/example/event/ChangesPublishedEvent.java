@@ -0,0 +1,8 @@
+package com.example.event;
+
+import com.example.dto.ChangeEventDTO;
+
+import java.util.List;
+
+// Порция событий журнала изменений для слушателей внутри приложения, в порядке смещений
+public record ChangesPublishedEvent(List<ChangeEventDTO> events) {}
@@ -0,0 +1,13 @@
+package com.example.event;
+
+// Ресторан создан, изменен (включая рейтинг) или удален; слушатели получают его после коммита
+public record RestaurantChangedEvent(Long restaurantId, boolean deleted) {
+
+    public static RestaurantChangedEvent changed(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, false);
+    }
+
+    public static RestaurantChangedEvent deleted(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, true);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.event;
+
+// Рейтинги всех ресторанов пересобраны разом; производные индексы нужно перечитать целиком
+public record RestaurantRatingsRebuiltEvent(int restaurantsUpdated) {}
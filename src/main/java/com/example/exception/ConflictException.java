@@ -0,0 +1,9 @@
+package com.example.exception;
+
+// Запрос противоречит текущему состоянию данных (дубль отзыва): 409, сообщение уходит клиенту
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
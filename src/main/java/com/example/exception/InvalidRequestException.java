@@ -0,0 +1,13 @@
+package com.example.exception;
+
+// Некорректные параметры запроса (курсор, expand, размер пакета): 400, сообщение уходит клиенту
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
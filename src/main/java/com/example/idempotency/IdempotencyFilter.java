@@ -0,0 +1,237 @@
+package com.example.idempotency;
+
+import com.example.config.IdempotencyProperties;
+import com.example.ratelimit.ClientKeyResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// POST с заголовком Idempotency-Key: первый запрос выполняется и его ответ сохраняется,
+// повтор с тем же ключом и телом получает сохраненный ответ (статус, Location, тело) без вызова сервиса.
+// Тот же ключ с другим телом - 422, повтор, пока первый еще выполняется, - 409.
+// Ответы 5xx и исключения не сохраняются: ключ освобождается, и повтор выполнится заново.
+// Ключ действует в пределах клиента (API-ключ или адрес, как у лимитера) и URI: чужой клиент
+// с тем же ключом не получит сохраненный ответ. Клиентам стоит генерировать ключ как UUID.
+// В таблице и в логах ключ хранится только как SHA-256 от (клиент, URI, ключ): API-ключ клиента
+// не попадает в открытом виде ни туда, ни туда, а длина scope_key не зависит от длины заголовков
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ClientKeyResolver clientKeyResolver;
+    private final ObjectMapper objectMapper;
+    private final Counter replayed;
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties,
+                             ClientKeyResolver clientKeyResolver, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.clientKeyResolver = clientKeyResolver;
+        this.objectMapper = objectMapper;
+        this.replayed = Counter.builder("app.idempotency.replayed")
+                .description("Повторы запросов, получившие сохраненный ответ")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > properties.maxKeyLength()) {
+            problem(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key должен быть непустым и не длиннее " + properties.maxKeyLength() + " символов");
+            return;
+        }
+        byte[] body = readBody(request);
+        if (body == null) {
+            problem(response, HttpStatus.PAYLOAD_TOO_LARGE, "Тело запроса с Idempotency-Key не должно превышать "
+                    + properties.maxBodySize().toBytes() + " байт");
+            return;
+        }
+        String requestHash = sha256(body);
+        String scopeKey = scopeKey(clientKeyResolver.resolve(request), request.getRequestURI(), key);
+
+        String claimToken = UUID.randomUUID().toString();
+        IdempotencyStore.Entry existing = store.claim(scopeKey, requestHash, claimToken);
+        if (existing != null) {
+            if (!existing.requestHash().equals(requestHash)) {
+                problem(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key уже использован с другим телом запроса");
+            } else if (existing.inProgress()) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                problem(response, HttpStatus.CONFLICT, "Запрос с этим Idempotency-Key еще выполняется");
+            } else {
+                replay(existing, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapper);
+            if (wrapper.getStatus() < 500) {
+                completed = complete(scopeKey, claimToken, requestHash, wrapper);
+            }
+        } finally {
+            if (!completed) {
+                store.release(scopeKey, claimToken);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // null - тело больше max-body-size. Content-Length может отсутствовать (chunked),
+    // поэтому читается не больше лимита и одного байта сверх него
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        long maxBodySize = properties.maxBodySize().toBytes();
+        if (request.getContentLengthLong() > maxBodySize) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes((int) maxBodySize + 1);
+        return body.length > maxBodySize ? null : body;
+    }
+
+    // Сбой сохранения не должен превращать выполненную запись в 500: ответ отдается, ключ освобождается
+    private boolean complete(String scopeKey, String claimToken, String requestHash,
+                             ContentCachingResponseWrapper wrapper) {
+        try {
+            if (!store.complete(scopeKey, claimToken, requestHash, wrapper.getStatus(), wrapper.getContentType(),
+                    wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getContentAsByteArray())) {
+                log.warn("Ключ идемпотентности {} забран другим запросом по таймауту, ответ не сохранен", scopeKey);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Ответ для ключа идемпотентности {} не сохранен", scopeKey, e);
+            return false;
+        }
+    }
+
+    private void replay(IdempotencyStore.Entry entry, HttpServletResponse response) throws IOException {
+        replayed.increment();
+        response.setStatus(entry.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (entry.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, entry.location());
+        }
+        if (entry.contentType() != null) {
+            response.setContentType(entry.contentType());
+        }
+        if (entry.body() != null) {
+            response.setContentLength(entry.body().length);
+            response.getOutputStream().write(entry.body());
+        }
+    }
+
+    private void problem(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), ProblemDetail.forStatusAndDetail(status, detail));
+    }
+
+    // Перевод строки не может встретиться ни в заголовке, ни в URI, поэтому части не склеиваются неоднозначно
+    static String scopeKey(String clientKey, String uri, String key) {
+        return sha256((clientKey + "\n" + uri + "\n" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Тело уже прочитано для хэша - контроллер получает его из памяти
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.idempotency;
+
+import com.example.config.IdempotencyProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+// Хранилище ключей идемпотентности: таблица idempotency_keys - общая для экземпляров и переживает рестарт,
+// перед ней Caffeine с завершенными ответами, чтобы частые повторы не ходили в БД.
+// Ключ занимается вставкой ON CONFLICT DO NOTHING: из параллельных запросов с одним ключом выполняется один.
+// Занявший запрос помечает строку своим токеном; ответ сохраняется и ключ освобождается только по нему
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdempotencyProperties properties;
+    private final Cache<String, Entry> completed;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.cacheMaximumSize())
+                .expireAfterWrite(properties.ttl())
+                .build();
+    }
+
+    // status == null - запрос с ключом еще выполняется
+    public record Entry(String requestHash, Integer status, String contentType, String location, byte[] body,
+                        Instant createdAt, Instant expiresAt) {
+
+        public boolean inProgress() {
+            return status == null;
+        }
+    }
+
+    // Занимает ключ токеном claimToken: null - ключ наш, иначе запись, уже связанная с ключом
+    public Entry claim(String scopeKey, String requestHash, String claimToken) {
+        Entry cached = completed.getIfPresent(scopeKey);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        // Второй проход - после удаления просроченной записи
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Instant now = Instant.now();
+            int inserted = jdbcTemplate.update("""
+                            INSERT INTO idempotency_keys (scope_key, request_hash, claim_token, created_at, expires_at)
+                            VALUES (?, ?, ?, ?, ?)
+                            ON CONFLICT DO NOTHING
+                            """,
+                    scopeKey, requestHash, claimToken, Timestamp.from(now),
+                    Timestamp.from(now.plus(properties.ttl())));
+            if (inserted > 0) {
+                return null;
+            }
+            Entry existing = find(scopeKey);
+            if (existing == null) {
+                continue;
+            }
+            if (!existing.expiresAt().isAfter(now)) {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE scope_key = ? AND expires_at <= ?",
+                        scopeKey, Timestamp.from(now));
+                continue;
+            }
+            if (existing.inProgress()) {
+                return takeOverStale(scopeKey, requestHash, claimToken, existing, now) ? null : existing;
+            }
+            completed.put(scopeKey, existing);
+            return existing;
+        }
+        throw new IllegalStateException("Не удалось занять ключ идемпотентности, повторите запрос");
+    }
+
+    // false - ключ за время выполнения забрал другой запрос (таймаут), его запись не трогается
+    public boolean complete(String scopeKey, String claimToken, String requestHash, int status, String contentType,
+                            String location, byte[] body) {
+        Instant now = Instant.now();
+        int updated = jdbcTemplate.update("""
+                        UPDATE idempotency_keys
+                        SET status = ?, content_type = ?, location = ?, body = ?
+                        WHERE scope_key = ? AND claim_token = ? AND status IS NULL
+                        """,
+                status, contentType, location, body, scopeKey, claimToken);
+        if (updated == 0) {
+            return false;
+        }
+        completed.put(scopeKey, new Entry(requestHash, status, contentType, location, body,
+                now, now.plus(properties.ttl())));
+        return true;
+    }
+
+    // Запрос упал или ответил 5xx: ключ освобождается, повтор выполнится заново
+    public void release(String scopeKey, String claimToken) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE scope_key = ? AND claim_token = ? AND status IS NULL",
+                scopeKey, claimToken);
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 3_600_000)
+    public int purge() {
+        int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?",
+                Timestamp.from(Instant.now()));
+        if (deleted > 0) {
+            log.info("Удалено просроченных ключей идемпотентности: {}", deleted);
+        }
+        return deleted;
+    }
+
+    // Незавершенная запись старше in-progress-timeout осталась от упавшего экземпляра - ключ забирается
+    // с новым токеном; если прежний запрос все же жив, его complete/release по старому токену ничего не изменят
+    private boolean takeOverStale(String scopeKey, String requestHash, String claimToken, Entry existing,
+                                  Instant now) {
+        if (existing.createdAt().plus(properties.inProgressTimeout()).isAfter(now)) {
+            return false;
+        }
+        return jdbcTemplate.update("""
+                        UPDATE idempotency_keys SET request_hash = ?, claim_token = ?, created_at = ?
+                        WHERE scope_key = ? AND status IS NULL AND created_at = ?
+                        """,
+                requestHash, claimToken, Timestamp.from(now), scopeKey,
+                Timestamp.from(existing.createdAt())) > 0;
+    }
+
+    private Entry find(String scopeKey) {
+        List<Entry> entries = jdbcTemplate.query("""
+                        SELECT request_hash, status, content_type, location, body, created_at, expires_at
+                        FROM idempotency_keys
+                        WHERE scope_key = ?
+                        """,
+                (rs, rowNum) -> new Entry(
+                        rs.getString("request_hash"),
+                        rs.getObject("status", Integer.class),
+                        rs.getString("content_type"),
+                        rs.getString("location"),
+                        rs.getBytes("body"),
+                        rs.getObject("created_at", Timestamp.class).toInstant(),
+                        rs.getObject("expires_at", Timestamp.class).toInstant()),
+                scopeKey);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+}
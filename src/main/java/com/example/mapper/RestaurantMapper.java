@@ -11,6 +11,11 @@ public interface RestaurantMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "rating", ignore = true)
+    @Mapping(target = "reviewCount", ignore = true)
+    @Mapping(target = "ratingSum", ignore = true)
+    @Mapping(target = "reviews", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Restaurant toEntity(RestaurantRequestDTO restaurantRequestDTO);
 
     RestaurantResponseDTO toResponseDTO(Restaurant restaurant);
@@ -11,9 +11,14 @@ public interface ReviewMapper {
 
     @Mapping(target = "visitor", ignore = true)
     @Mapping(target = "restaurant", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Review toEntity(ReviewRequestDTO reviewRequestDTO);
 
     @Mapping(target = "visitorId", source = "visitor.id")
     @Mapping(target = "restaurantId", source = "restaurant.id")
+    @Mapping(target = "visitor", ignore = true)
+    @Mapping(target = "restaurant", ignore = true)
     ReviewResponseDTO toResponseDTO(Review review);
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import org.mapstruct.Mapping;
 public interface VisitorMapper {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "reviews", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Visitor toEntity(VisitorRequestDTO visitorRequestDTO);
 
     VisitorResponseDTO toResponseDTO(Visitor visitor);
@@ -0,0 +1,21 @@
+package com.example.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Считает SQL-операторы, подготовленные Hibernate в текущем потоке.
+// Счетчик только растет; вызывающий код берет разность значений current() до и после участка.
+// Операторы JdbcTemplate (журнал изменений, ключи идемпотентности, аналитика) мимо Hibernate не считаются
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.outbox;
+
+import com.example.dto.ChangeEventDTO;
+import com.example.event.ChangesPublishedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Слушатели внутри приложения (@EventListener ChangesPublishedEvent) получают события после коммита изменений
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventChangeSink implements ChangeEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<ChangeEventDTO> events) {
+        eventPublisher.publishEvent(new ChangesPublishedEvent(events));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.outbox;
+
+import com.example.dto.ChangeEventDTO;
+
+import java.util.List;
+
+// Приемник событий журнала изменений. Релей вызывает каждый приемник-бин с порцией событий
+// в порядке смещений; исключение приемника не мешает остальным и не останавливает релей
+public interface ChangeEventSink {
+
+    void publish(List<ChangeEventDTO> events);
+}
@@ -0,0 +1,88 @@
+package com.example.outbox;
+
+import com.example.dto.ChangeEventDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Запись и чтение журнала изменений. Запись возможна только внутри транзакции изменения:
+// событие и данные коммитятся или откатываются вместе, поэтому потребители не видят изменений, которых не было
+@Component
+@RequiredArgsConstructor
+public class ChangeOutbox {
+
+    private static final String INSERT = """
+            INSERT INTO change_outbox (entity_type, entity_id, change_type, payload)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public static String reviewKey(Long visitorId, Long restaurantId) {
+        return visitorId + ":" + restaurantId;
+    }
+
+    // payload - DTO сущности после изменения или null
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangedEntity entity, Object entityId, ChangeType type, Object payload) {
+        jdbcTemplate.update(INSERT, entity.name(), String.valueOf(entityId), type.name(), toJson(payload));
+    }
+
+    // Одно событие на каждый id одним JDBC-батчем, без payload (удаления порциями, импорт)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ChangedEntity entity, List<String> entityIds, ChangeType type) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, entityIds, entityIds.size(), (ps, entityId) -> {
+            ps.setString(1, entity.name());
+            ps.setString(2, entityId);
+            ps.setString(3, type.name());
+            ps.setString(4, null);
+        });
+    }
+
+    // События с назначенным смещением больше after, по возрастанию смещения
+    public List<ChangeEventDTO> readAfter(long after, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT position, entity_type, entity_id, change_type, payload, created_at
+                        FROM change_outbox
+                        WHERE position > ?
+                        ORDER BY position
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new ChangeEventDTO(
+                        rs.getLong("position"),
+                        rs.getString("entity_type"),
+                        rs.getString("entity_id"),
+                        rs.getString("change_type"),
+                        rs.getString("payload"),
+                        rs.getObject("created_at", Timestamp.class).toInstant()),
+                after, limit);
+    }
+
+    public long lastPosition() {
+        Long last = jdbcTemplate.queryForObject("SELECT MAX(position) FROM change_outbox", Long.class);
+        return last == null ? 0 : last;
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
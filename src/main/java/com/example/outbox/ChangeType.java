@@ -0,0 +1,11 @@
+package com.example.outbox;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // Изменились агрегаты рейтинга ресторана (после записи или пересчета отзывов)
+    RATING_CHANGED,
+    // Пересобраны агрегаты всех ресторанов, entityId - "*"
+    RATINGS_REBUILT
+}
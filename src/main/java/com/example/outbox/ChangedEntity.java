@@ -0,0 +1,8 @@
+package com.example.outbox;
+
+// Тип сущности в журнале изменений. Отзыв адресуется ключом visitorId:restaurantId
+public enum ChangedEntity {
+    RESTAURANT,
+    VISITOR,
+    REVIEW
+}
@@ -0,0 +1,45 @@
+package com.example.outbox;
+
+import com.example.config.OutboxProperties;
+import com.example.dto.ChangeEventDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Локальный журнал изменений: одно событие - одна строка JSON, порция дописывается одной записью в файл
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "file-enabled", havingValue = "true")
+public class NdjsonFileChangeSink implements ChangeEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+
+    public NdjsonFileChangeSink(ObjectMapper objectMapper, OutboxProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeEventDTO> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (ChangeEventDTO event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            Files.writeString(properties.filePath(), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать журнал изменений в " + properties.filePath(), e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.outbox;
+
+import com.example.config.OutboxProperties;
+import com.example.dto.ChangeEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+// Релей журнала изменений. Шаг 1: закоммиченным строкам без смещения назначаются смещения подряд
+// (строка change_outbox_relay блокируется FOR UPDATE, экземпляры назначают по очереди).
+// Шаг 2: каждый экземпляр читает события после последнего разосланного им смещения и отдает их
+// своим приемникам - слушателям, файлу, подписчикам SSE. Разосланное смещение хранится в памяти:
+// после перезапуска рассылка идет с текущего конца журнала, а пропущенное клиенты дочитывают
+// через /api/changes?since=, таблица - источник истины
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeOutbox changeOutbox;
+    private final List<ChangeEventSink> sinks;
+    private final OutboxProperties properties;
+    private final Counter publishedCounter;
+
+    // -1 - рассылка еще не начата (до ApplicationReadyEvent)
+    private volatile long dispatchedPosition = -1;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       ChangeOutbox changeOutbox, List<ChangeEventSink> sinks,
+                       OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.changeOutbox = changeOutbox;
+        this.sinks = sinks;
+        this.properties = properties;
+        this.publishedCounter = Counter.builder("app.outbox.published")
+                .description("События журнала изменений, разосланные приемникам экземпляра")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        dispatchedPosition = changeOutbox.lastPosition();
+    }
+
+    public long dispatchedPosition() {
+        return dispatchedPosition;
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.relay-interval-ms:200}",
+            fixedDelayString = "${app.outbox.relay-interval-ms:200}")
+    public void relay() {
+        while (assignPositions() == properties.batchSize()) {
+            // Порция полная - сразу следующая, не дожидаясь интервала
+        }
+        dispatch();
+    }
+
+    // Опубликованные события старше срока хранения; клиенты, отставшие сильнее, читают с первого сохраненного
+    @Scheduled(initialDelay = 60_000, fixedDelay = 3_600_000)
+    public int purge() {
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM change_outbox WHERE position IS NOT NULL AND created_at < ?",
+                Timestamp.from(Instant.now().minus(properties.retention())));
+        if (deleted > 0) {
+            log.info("Из журнала изменений удалено событий: {}", deleted);
+        }
+        return deleted;
+    }
+
+    private int assignPositions() {
+        Integer assigned = transactionTemplate.execute(status -> {
+            long last = jdbcTemplate.queryForObject(
+                    "SELECT last_position FROM change_outbox_relay WHERE id = 1 FOR UPDATE", Long.class);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM change_outbox WHERE position IS NULL ORDER BY id LIMIT ?",
+                    Long.class, properties.batchSize());
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            long[] next = {last};
+            jdbcTemplate.batchUpdate("UPDATE change_outbox SET position = ? WHERE id = ?", ids, ids.size(),
+                    (ps, id) -> {
+                        ps.setLong(1, ++next[0]);
+                        ps.setLong(2, id);
+                    });
+            jdbcTemplate.update("UPDATE change_outbox_relay SET last_position = ? WHERE id = 1", next[0]);
+            return ids.size();
+        });
+        return assigned == null ? 0 : assigned;
+    }
+
+    private void dispatch() {
+        if (dispatchedPosition < 0) {
+            return;
+        }
+        List<ChangeEventDTO> events;
+        do {
+            events = changeOutbox.readAfter(dispatchedPosition, properties.batchSize());
+            if (events.isEmpty()) {
+                return;
+            }
+            for (ChangeEventSink sink : sinks) {
+                try {
+                    sink.publish(events);
+                } catch (RuntimeException e) {
+                    log.warn("Приемник {} не принял события {}..{}", sink.getClass().getSimpleName(),
+                            events.get(0).offset(), events.get(events.size() - 1).offset(), e);
+                }
+            }
+            dispatchedPosition = events.get(events.size() - 1).offset();
+            publishedCounter.increment(events.size());
+        } while (events.size() == properties.batchSize());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.outbox;
+
+import com.example.config.OutboxProperties;
+import com.example.dto.ChangeEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Подписчики /api/changes (text/event-stream). id события SSE - смещение, поэтому браузер
+// при переподключении сам присылает Last-Event-ID и продолжает без пропусков.
+// Релей только кладет события в ограниченную очередь подписчика и не ждет сети: отправка
+// и дочитывание из таблицы идут задачей подписчика на виртуальном потоке. Подписчик, чья очередь
+// переполнилась (медленный клиент), отключается - он переподключится с Last-Event-ID и дочитает
+// пропущенное из таблицы. Смещения идут подряд: разрыв между последним отправленным и следующим
+// событием очереди дочитывается из таблицы
+@Slf4j
+@Component
+public class SseChangeSink implements ChangeEventSink {
+
+    private final ChangeOutbox changeOutbox;
+    private final OutboxProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("sse-sender-", 0).factory());
+    private final Counter dropped;
+
+    public SseChangeSink(ChangeOutbox changeOutbox, OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.changeOutbox = changeOutbox;
+        this.properties = properties;
+        Gauge.builder("app.outbox.sse.subscribers", subscribers, Set::size)
+                .description("Открытые подписки SSE на журнал изменений")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("app.outbox.sse.dropped")
+                .description("Подписки SSE, отключенные из-за переполненной очереди")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(properties.sseTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, since, properties.sseQueueCapacity());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Первая задача дочитывает историю с since
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @Override
+    public void publish(List<ChangeEventDTO> events) {
+        for (Subscriber subscriber : subscribers) {
+            for (ChangeEventDTO event : events) {
+                if (!subscriber.queue.offer(event)) {
+                    disconnect(subscriber);
+                    break;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            log.debug("Подписка SSE отстала на {} событий и отключена", subscriber.queue.size());
+            subscriber.emitter.complete();
+        }
+    }
+
+    // Отправкой подписчика в каждый момент занята одна задача: ReentrantLock, а не synchronized,
+    // чтобы ожидание сети и JDBC не закрепляли виртуальный поток за потоком-носителем
+    private void drain(Subscriber subscriber) {
+        subscriber.lock.lock();
+        try {
+            // Сброс до чтения очереди: событие, добавленное после этой строки, запустит еще одну задачу
+            subscriber.scheduled.set(false);
+            if (!subscribers.contains(subscriber)) {
+                return;
+            }
+            if (!subscriber.caughtUp) {
+                if (!sendFromTable(subscriber, Long.MAX_VALUE)) {
+                    return;
+                }
+                subscriber.caughtUp = true;
+            }
+            ChangeEventDTO event;
+            while ((event = subscriber.queue.poll()) != null) {
+                if (event.offset() > subscriber.lastSent + 1 && !sendFromTable(subscriber, event.offset() - 1)) {
+                    return;
+                }
+                if (!send(subscriber, List.of(event))) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ошибка рассылки подписчику SSE", e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.lock.unlock();
+        }
+    }
+
+    // Отправляет из таблицы события после lastSent, не дальше upTo; false - подписчик отключился
+    private boolean sendFromTable(Subscriber subscriber, long upTo) {
+        while (subscriber.lastSent < upTo) {
+            int limit = (int) Math.min(properties.batchSize(), upTo - subscriber.lastSent);
+            List<ChangeEventDTO> events = changeOutbox.readAfter(subscriber.lastSent, limit);
+            if (events.isEmpty()) {
+                return true;
+            }
+            if (!send(subscriber, events)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean send(Subscriber subscriber, List<ChangeEventDTO> events) {
+        try {
+            for (ChangeEventDTO event : events) {
+                if (event.offset() <= subscriber.lastSent) {
+                    continue;
+                }
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.offset()))
+                        .name("change")
+                        .data(event, MediaType.APPLICATION_JSON));
+                subscriber.lastSent = event.offset();
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Клиент закрыл соединение или эмиттер уже завершен
+            log.debug("Подписка SSE на журнал изменений закрыта: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    // lastSent и caughtUp меняются только под lock
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<ChangeEventDTO> queue;
+        final ReentrantLock lock = new ReentrantLock();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        long lastSent;
+        boolean caughtUp;
+
+        Subscriber(SseEmitter emitter, long lastSent, int queueCapacity) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
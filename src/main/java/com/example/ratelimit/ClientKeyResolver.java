@@ -0,0 +1,24 @@
+package com.example.ratelimit;
+
+import com.example.config.RateLimitProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+// Идентификатор клиента для лимитов и ключей идемпотентности: API-ключ из заголовка, если он
+// выдан (app.rate-limit.api-keys), иначе - адрес (за прокси нужен server.forward-headers-strategy)
+@Component
+public class ClientKeyResolver {
+
+    private final RateLimitProperties properties;
+
+    public ClientKeyResolver(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String apiKey = request.getHeader(properties.apiKeyHeader());
+        return apiKey != null && properties.apiKeys().contains(apiKey)
+                ? "key:" + apiKey
+                : "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ratelimit;
+
+import com.example.config.RateLimitProperties;
+import com.example.datasource.ConnectionWaitTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Ограничение запросов до контроллеров, то есть до того, как запрос займет соединение из пула.
+// 1. Сброс нагрузки: если среднее ожидание соединения выше порога - 503. Записи держат соединение
+//    на несколько запросов, поэтому их порог ниже, и при перегрузке первыми отбрасываются они.
+// 2. Лимит клиента: свой token bucket на чтения и на записи - 429, когда бюджет исчерпан.
+// Клиент определяет ClientKeyResolver: выданный API-ключ, иначе адрес.
+// Корзины лежат в Caffeine с ограничением размера и вытеснением простаивающих, память не растет
+// от числа адресов
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final RateLimitProperties properties;
+    private final ClientKeyResolver clientKeyResolver;
+    private final ConnectionWaitTracker waitTracker;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, ClientBudget> clients;
+    private final Counter readsLimited;
+    private final Counter writesLimited;
+    private final Counter readsShed;
+    private final Counter writesShed;
+
+    public RateLimitFilter(RateLimitProperties properties, ClientKeyResolver clientKeyResolver,
+                           ConnectionWaitTracker waitTracker, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clientKeyResolver = clientKeyResolver;
+        this.waitTracker = waitTracker;
+        this.objectMapper = objectMapper;
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(properties.maxClients())
+                .expireAfterAccess(properties.clientIdleTimeout())
+                .build();
+        this.readsLimited = limited(meterRegistry, "read");
+        this.writesLimited = limited(meterRegistry, "write");
+        this.readsShed = shed(meterRegistry, "read");
+        this.writesShed = shed(meterRegistry, "write");
+        Gauge.builder("app.ratelimit.clients", clients, Cache::estimatedSize)
+                .description("Клиенты с корзинами лимитов в памяти")
+                .register(meterRegistry);
+        Gauge.builder("app.datasource.wait.recent", waitTracker, tracker -> tracker.recentWait().toNanos() / 1e6)
+                .description("Скользящее среднее ожидания соединения, по которому сбрасывается нагрузка")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+
+        Duration shedWait = write ? properties.writeShedWait() : properties.readShedWait();
+        if (waitTracker.recentWait().compareTo(shedWait) > 0) {
+            (write ? writesShed : readsShed).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, properties.shedRetryAfter().toNanos(),
+                    "Сервис перегружен, повторите запрос позже");
+            return;
+        }
+
+        ClientBudget budget = clients.get(clientKeyResolver.resolve(request), key -> new ClientBudget(
+                new TokenBucket(properties.readsPerSecond(), properties.readBurst()),
+                new TokenBucket(properties.writesPerSecond(), properties.writeBurst())));
+        long waitNanos = (write ? budget.writes() : budget.reads()).tryAcquire();
+        if (waitNanos > 0) {
+            (write ? writesLimited : readsLimited).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Превышен лимит запросов");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String detail)
+            throws IOException {
+        // Retry-After - целые секунды, округление вверх: раньше повторять бесполезно
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), ProblemDetail.forStatusAndDetail(status, detail));
+    }
+
+    private static Counter limited(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("app.ratelimit.limited")
+                .description("Запросы, отклоненные лимитом клиента (429)")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private static Counter shed(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("app.ratelimit.shed")
+                .description("Запросы, сброшенные из-за ожидания соединения (503)")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private record ClientBudget(TokenBucket reads, TokenBucket writes) {}
+}
@@ -0,0 +1,38 @@
+package com.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket в форме GCRA: вместо счетчика токенов и времени пополнения хранится одно число -
+// теоретическое время следующего запроса (TAT), поэтому проверка - один CAS без блокировок.
+// Пропускает burst запросов подряд и дальше ratePerSecond в секунду
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Лимит должен быть положительным: " + ratePerSecond + "/с, burst " + burst);
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    // 0 - запрос пропущен, иначе через сколько наносекунд освободится токен
+    long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long waitNanos = start - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
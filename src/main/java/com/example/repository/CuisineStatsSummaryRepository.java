@@ -0,0 +1,14 @@
+package com.example.repository;
+
+import com.example.entity.CuisineStatsSummary;
+import com.example.entity.CuisineType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CuisineStatsSummaryRepository extends JpaRepository<CuisineStatsSummary, CuisineType> {
+
+    List<CuisineStatsSummary> findAllByOrderByCuisineTypeAsc();
+}
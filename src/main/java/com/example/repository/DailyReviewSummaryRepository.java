@@ -0,0 +1,14 @@
+package com.example.repository;
+
+import com.example.entity.DailyReviewSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyReviewSummaryRepository extends JpaRepository<DailyReviewSummary, LocalDate> {
+
+    List<DailyReviewSummary> findByReviewDateBetweenOrderByReviewDateAsc(LocalDate from, LocalDate to);
+}
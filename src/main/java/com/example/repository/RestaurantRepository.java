@@ -1,13 +1,25 @@
 package com.example.repository;
 
+import com.example.entity.CuisineType;
 import com.example.entity.Restaurant;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
@@ -19,5 +31,71 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
     @Query("SELECT r FROM Restaurant r WHERE r.rating >= :minRating ORDER BY r.rating DESC")
     List<Restaurant> findRestaurantsWithMinRating(@Param("minRating") BigDecimal minRating);
 
-    List<Restaurant> findByCuisineType(String cuisineType);
+    List<Restaurant> findByCuisineType(CuisineType cuisineType);
+
+    //какие из переданных id существуют (проверка пачкой вместо findById по одному)
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //потоковое чтение всех ресторанов курсором JDBC, строки подтягиваются порциями по fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM Restaurant r ORDER BY r.id")
+    Stream<Restaurant> streamAll();
+
+    //поддерживаемый счетчик отзывов, используется как оценка total без count(*)
+    @Query("SELECT r.reviewCount FROM Restaurant r WHERE r.id = :restaurantId")
+    Optional<Long> findReviewCountById(@Param("restaurantId") Long restaurantId);
+
+    //keyset-пагинация: следующая порция после заданного id
+    List<Restaurant> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    //версия ресторана для ETag без загрузки сущности
+    @Query("SELECT r.version FROM Restaurant r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    //ресторан с блокировкой строки: изменения рейтинга ждут конца редактирования, версия не расходится
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Restaurant r WHERE r.id = :id")
+    Optional<Restaurant> findLockedById(@Param("id") Long id);
+
+    //атомарное применение изменения к агрегатам рейтинга (без read-modify-write в Java);
+    //рейтинг входит в представление ресторана, поэтому версия и updated_at тоже меняются
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE restaurants SET
+                review_count = review_count + :countDelta,
+                rating_sum = rating_sum + :sumDelta,
+                rating = CASE WHEN review_count + :countDelta > 0
+                    THEN ROUND((rating_sum + :sumDelta) * 1.0 / (review_count + :countDelta), 2)
+                    ELSE 0 END,
+                version = version + 1,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE id = :restaurantId
+            """, nativeQuery = true)
+    int applyRatingDelta(@Param("restaurantId") Long restaurantId,
+                         @Param("countDelta") long countDelta,
+                         @Param("sumDelta") long sumDelta);
+
+    //пересборка агрегатов рейтинга по таблице отзывов (сверка)
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE restaurants r SET (review_count, rating_sum, rating) = (
+                SELECT COUNT(*), COALESCE(SUM(rv.rating), 0), COALESCE(ROUND(AVG(rv.rating * 1.0), 2), 0)
+                FROM reviews rv WHERE rv.restaurant_id = r.id),
+                version = r.version + 1,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE r.id = :restaurantId
+            """, nativeQuery = true)
+    int rebuildRatingAggregates(@Param("restaurantId") Long restaurantId);
+
+    //начальное заполнение агрегатов при деплое делает миграция V11 тем же запросом; здесь - ручная сверка
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE restaurants r SET (review_count, rating_sum, rating) = (
+                SELECT COUNT(*), COALESCE(SUM(rv.rating), 0), COALESCE(ROUND(AVG(rv.rating * 1.0), 2), 0)
+                FROM reviews rv WHERE rv.restaurant_id = r.id),
+                version = r.version + 1,
+                updated_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int rebuildAllRatingAggregates();
 }
\ No newline at end of file
@@ -1,40 +1,210 @@
 package com.example.repository;
 
+import com.example.dto.RatingCountDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.dto.ReviewsFingerprintDTO;
+import com.example.dto.VisitorReviewDTO;
 import com.example.entity.Review;
 import com.example.entity.ReviewId;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, ReviewId> {
 
-    //найти все отзывы по ресторану с пагинацией
-    Page<Review> findByRestaurantId(Long restaurantId, Pageable pageable);
+    //вставка отзыва одним оператором: существование посетителя и ресторана проверяют внешние ключи,
+    //повтор отзыва гасится первичным ключом без ошибки; 0 строк - отзыв уже есть.
+    //created_at, version и updated_at берутся из значений по умолчанию колонок
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO reviews (visitor_id, restaurant_id, rating, review_text)
+            VALUES (:visitorId, :restaurantId, :rating, :reviewText)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("visitorId") Long visitorId,
+                       @Param("restaurantId") Long restaurantId,
+                       @Param("rating") int rating,
+                       @Param("reviewText") String reviewText);
 
-    //найти все отзывы посетителя
-    List<Review> findByVisitorId(Long visitorId);
+    //уже существующие отзывы среди пар посетитель/ресторан (проверка дублей пачкой)
+    @Query("""
+            SELECT new com.example.entity.ReviewId(r.visitor.id, r.restaurant.id) FROM Review r
+            WHERE r.visitor.id IN :visitorIds AND r.restaurant.id IN :restaurantIds
+            """)
+    List<ReviewId> findExistingIds(@Param("visitorIds") Collection<Long> visitorIds,
+                                   @Param("restaurantIds") Collection<Long> restaurantIds);
 
-    //проверить, существует ли отзыв от пользователя для ресторана
-    boolean existsByVisitorIdAndRestaurantId(Long visitorId, Long restaurantId);
+    //очередная порция отзывов посетителя для удаления порциями; под блокировкой, чтобы оценки
+    //не изменились до DELETE и вычитаемая из рейтинга ресторанов дельта была точной
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.visitor.id = :visitorId ORDER BY r.restaurant.id")
+    List<Review> findLockedBatchByVisitorId(@Param("visitorId") Long visitorId, Pageable pageable);
+
+    //ключи очередной порции отзывов ресторана; рейтинг не пересчитывается - ресторан удаляется следом
+    @Query("SELECT r.visitor.id FROM Review r WHERE r.restaurant.id = :restaurantId ORDER BY r.visitor.id")
+    List<Long> findVisitorIdsByRestaurantId(@Param("restaurantId") Long restaurantId, Pageable pageable);
+
+    //удаление порции отзывов одним DELETE, без загрузки сущностей в контекст персистентности
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.visitor.id = :visitorId AND r.restaurant.id IN :restaurantIds")
+    int bulkDeleteByVisitorIdAndRestaurantIds(@Param("visitorId") Long visitorId,
+                                              @Param("restaurantIds") Collection<Long> restaurantIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.restaurant.id = :restaurantId AND r.visitor.id IN :visitorIds")
+    int bulkDeleteByRestaurantIdAndVisitorIds(@Param("restaurantId") Long restaurantId,
+                                              @Param("visitorIds") Collection<Long> visitorIds);
 
     //найти отзыв по посетителю и ресторану
     Optional<Review> findByVisitorIdAndRestaurantId(Long visitorId, Long restaurantId);
 
+    //то же, но с блокировкой строки отзыва: старая оценка не изменится до конца транзакции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Review> findLockedByVisitorIdAndRestaurantId(Long visitorId, Long restaurantId);
+
+    //версия отзыва для ETag без загрузки сущности
+    @Query("SELECT r.version FROM Review r WHERE r.visitor.id = :visitorId AND r.restaurant.id = :restaurantId")
+    Optional<Long> findVersion(@Param("visitorId") Long visitorId, @Param("restaurantId") Long restaurantId);
+
+    //отпечаток набора отзывов ресторана для ETag страниц: меняется при добавлении, удалении и изменении отзыва
+    @Query("""
+            SELECT new com.example.dto.ReviewsFingerprintDTO(COUNT(r), MAX(r.updatedAt))
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId
+            """)
+    ReviewsFingerprintDTO findFingerprintByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    //гистограмма оценок по ресторанам одним GROUP BY; читается из индекса (restaurant_id, rating, visitor_id)
+    @Query("""
+            SELECT new com.example.dto.RatingCountDTO(r.restaurant.id, r.rating, COUNT(r))
+            FROM Review r
+            WHERE r.restaurant.id IN :restaurantIds
+            GROUP BY r.restaurant.id, r.rating
+            """)
+    List<RatingCountDTO> countByRestaurantIdsAndRating(@Param("restaurantIds") Collection<Long> restaurantIds);
+
+    //ниже - чтения сразу в DTO: выбираются только visitor_id, restaurant_id, rating, review_text,
+    //без загрузки сущностей и инициализации прокси посетителя и ресторана
+
+    //все отзывы
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            """)
+    List<ReviewResponseDTO> findAllResponses();
+
+    //один отзыв по составному ключу
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.visitor.id = :visitorId AND r.restaurant.id = :restaurantId
+            """)
+    Optional<ReviewResponseDTO> findResponseById(@Param("visitorId") Long visitorId,
+                                                 @Param("restaurantId") Long restaurantId);
+
+    //потоковое чтение всех отзывов в порядке первичного ключа
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            ORDER BY r.visitor.id, r.restaurant.id
+            """)
+    Stream<ReviewResponseDTO> streamAllResponses();
+
+    //keyset-пагинация по первичному ключу (visitor_id, restaurant_id)
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.visitor.id > :visitorId OR (r.visitor.id = :visitorId AND r.restaurant.id > :restaurantId)
+            ORDER BY r.visitor.id, r.restaurant.id
+            """)
+    List<ReviewResponseDTO> findAfterKey(@Param("visitorId") Long visitorId,
+                                         @Param("restaurantId") Long restaurantId,
+                                         Pageable pageable);
+
+    //найти все отзывы по ресторану с пагинацией и произвольной сортировкой
+    @Query(value = """
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId
+            """,
+            countQuery = "SELECT COUNT(r) FROM Review r WHERE r.restaurant.id = :restaurantId")
+    Page<ReviewResponseDTO> findResponsesByRestaurantId(@Param("restaurantId") Long restaurantId, Pageable pageable);
+
+    //seek-пагинация отзывов ресторана по ключу (rating, visitor_id), без OFFSET и count(*).
+    //ORDER BY повторяет индекс (restaurant_id, rating, visitor_id) целиком, включая зафиксированный restaurant_id,
+    //чтобы порядок индекса распознавал и планировщик H2
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId AND (r.rating, r.visitor.id) > (:rating, :visitorId)
+            ORDER BY r.restaurant.id ASC, r.rating ASC, r.visitor.id ASC
+            """)
+    List<ReviewResponseDTO> findByRestaurantAfterAsc(@Param("restaurantId") Long restaurantId,
+                                                     @Param("rating") int rating,
+                                                     @Param("visitorId") long visitorId,
+                                                     Pageable pageable);
+
+    @Query("""
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId AND (r.rating, r.visitor.id) < (:rating, :visitorId)
+            ORDER BY r.restaurant.id DESC, r.rating DESC, r.visitor.id DESC
+            """)
+    List<ReviewResponseDTO> findByRestaurantAfterDesc(@Param("restaurantId") Long restaurantId,
+                                                      @Param("rating") int rating,
+                                                      @Param("visitorId") long visitorId,
+                                                      Pageable pageable);
+
     //получение отзывов с сортировкой
-    @Query("SELECT r FROM Review r WHERE r.restaurant.id = :restaurantId ORDER BY r.rating ASC")
-    Page<Review> findReviewsByRestaurantSortedByRatingAsc(
+    @Query(value = """
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId
+            ORDER BY r.rating ASC
+            """,
+            countQuery = "SELECT COUNT(r) FROM Review r WHERE r.restaurant.id = :restaurantId")
+    Page<ReviewResponseDTO> findReviewsByRestaurantSortedByRatingAsc(
             @Param("restaurantId") Long restaurantId,
             Pageable pageable);
 
-    @Query("SELECT r FROM Review r WHERE r.restaurant.id = :restaurantId ORDER BY r.rating DESC")
-    Page<Review> findReviewsByRestaurantSortedByRatingDesc(
+    @Query(value = """
+            SELECT new com.example.dto.ReviewResponseDTO(r.visitor.id, r.restaurant.id, r.rating, r.reviewText)
+            FROM Review r
+            WHERE r.restaurant.id = :restaurantId
+            ORDER BY r.rating DESC
+            """,
+            countQuery = "SELECT COUNT(r) FROM Review r WHERE r.restaurant.id = :restaurantId")
+    Page<ReviewResponseDTO> findReviewsByRestaurantSortedByRatingDesc(
             @Param("restaurantId") Long restaurantId,
             Pageable pageable);
-}
\ No newline at end of file
+
+    //история отзывов посетителя, новые первыми: seek по индексу (visitor_id, created_at DESC, restaurant_id DESC),
+    //название ресторана - соединением по первичному ключу restaurants
+    @Query("""
+            SELECT new com.example.dto.VisitorReviewDTO(rs.id, rs.name, r.rating, r.reviewText, r.createdAt)
+            FROM Review r JOIN r.restaurant rs
+            WHERE r.visitor.id = :visitorId AND (r.createdAt, r.restaurant.id) < (:createdAt, :restaurantId)
+            ORDER BY r.visitor.id DESC, r.createdAt DESC, r.restaurant.id DESC
+            """)
+    List<VisitorReviewDTO> findHistoryByVisitorBefore(@Param("visitorId") Long visitorId,
+                                                      @Param("createdAt") Instant createdAt,
+                                                      @Param("restaurantId") long restaurantId,
+                                                      Pageable pageable);
+}
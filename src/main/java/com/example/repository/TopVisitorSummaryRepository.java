@@ -0,0 +1,14 @@
+package com.example.repository;
+
+import com.example.entity.TopVisitorSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TopVisitorSummaryRepository extends JpaRepository<TopVisitorSummary, Long> {
+
+    List<TopVisitorSummary> findAllByOrderByReviewCountDescVisitorIdAsc(Pageable pageable);
+}
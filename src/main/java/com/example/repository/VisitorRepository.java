@@ -1,9 +1,37 @@
 package com.example.repository;
 
 import com.example.entity.Visitor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface VisitorRepository extends JpaRepository<Visitor, Long> {
+
+    //какие из переданных id существуют (проверка пачкой вместо findById по одному)
+    @Query("SELECT v.id FROM Visitor v WHERE v.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //потоковое чтение всех посетителей курсором JDBC
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT v FROM Visitor v ORDER BY v.id")
+    Stream<Visitor> streamAll();
+
+    //версия посетителя для ETag без загрузки сущности
+    @Query("SELECT v.version FROM Visitor v WHERE v.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    //keyset-пагинация: следующая порция после заданного id
+    List<Visitor> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.example.service;
+
+import com.example.config.AnalyticsProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Пересборка сводок аналитики из restaurants/reviews по расписанию.
+// Вся пересборка - одна транзакция: читатели сводок видят прежние данные до коммита,
+// а дашборды не гоняют агрегации по OLTP-таблицам на каждый запрос.
+// Строка analytics_refresh блокируется FOR UPDATE, поэтому экземпляры приложения пересобирают по очереди,
+// а запуск по расписанию, получив блокировку, пропускает пересборку, если другой экземпляр уже обновил
+// сводки в пределах интервала: на N экземпляров приходится одна агрегация за период, а не N.
+@Slf4j
+@Service
+public class AnalyticsRefreshService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsProperties properties;
+    private final Timer refreshTimer;
+    private final Timer failedRefreshTimer;
+
+    private volatile Instant lastRefreshedAt;
+
+    public AnalyticsRefreshService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   AnalyticsProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.refreshTimer = Timer.builder("app.analytics.refresh")
+                .description("Длительность пересборки сводок аналитики")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedRefreshTimer = Timer.builder("app.analytics.refresh")
+                .description("Длительность пересборки сводок аналитики")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        Gauge.builder("app.analytics.staleness", this, AnalyticsRefreshService::stalenessSeconds)
+                .description("Сколько секунд прошло с последней успешной пересборки")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Instant lastRefreshedAt() {
+        return lastRefreshedAt;
+    }
+
+    // Пустые сводки после первого деплоя собираются сразу, а не через интервал.
+    // Сбой здесь не должен останавливать приложение: сводки соберет следующий запуск по расписанию
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            Timestamp refreshedAt = jdbcTemplate.queryForObject(
+                    "SELECT refreshed_at FROM analytics_refresh WHERE id = 1", Timestamp.class);
+            if (refreshedAt == null) {
+                refresh();
+            } else {
+                lastRefreshedAt = refreshedAt.toInstant();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Сводки аналитики не собраны при старте, повтор по расписанию", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.analytics.refresh-interval-ms:900000}",
+            fixedDelayString = "${app.analytics.refresh-interval-ms:900000}")
+    public void scheduledRefresh() {
+        refresh(false);
+    }
+
+    // Пересборка по требованию (админка, старт с пустыми сводками): выполняется всегда
+    public Duration refresh() {
+        return refresh(true);
+    }
+
+    private Duration refresh(boolean force) {
+        long start = System.nanoTime();
+        try {
+            Refresh result = transactionTemplate.execute(status -> rebuild(start, force));
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            // Время общей сводки, а не собственных запусков: gauge устаревания одинаков на всех экземплярах
+            lastRefreshedAt = result.refreshedAt();
+            if (result.rebuilt()) {
+                refreshTimer.record(duration);
+                log.debug("Сводки аналитики пересобраны за {} мс", duration.toMillis());
+            } else {
+                log.debug("Сводки аналитики свежие ({}), пересборка пропущена", result.refreshedAt());
+            }
+            return duration;
+        } catch (RuntimeException e) {
+            failedRefreshTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            throw e;
+        }
+    }
+
+    private Refresh rebuild(long start, boolean force) {
+        Timestamp shared = jdbcTemplate.queryForObject(
+                "SELECT refreshed_at FROM analytics_refresh WHERE id = 1 FOR UPDATE", Timestamp.class);
+        if (!force && shared != null && shared.toInstant()
+                .isAfter(Instant.now().minusMillis(properties.refreshIntervalMs()))) {
+            return new Refresh(shared.toInstant(), false);
+        }
+
+        jdbcTemplate.update("DELETE FROM analytics_cuisine_stats");
+        jdbcTemplate.update("""
+                INSERT INTO analytics_cuisine_stats (cuisine_type, restaurant_count, review_count, rating_sum, total_bill)
+                SELECT cuisine_type, COUNT(*), SUM(review_count), SUM(rating_sum), SUM(average_bill)
+                FROM restaurants
+                GROUP BY cuisine_type
+                """);
+
+        LocalDate windowStart = LocalDate.now().minusDays(properties.dailyWindowDays());
+        jdbcTemplate.update("DELETE FROM analytics_daily_reviews WHERE review_date >= ?", Date.valueOf(windowStart));
+        jdbcTemplate.update("""
+                INSERT INTO analytics_daily_reviews (review_date, review_count, rating_sum)
+                SELECT CAST(created_at AS DATE), COUNT(*), SUM(rating)
+                FROM reviews
+                WHERE created_at >= ?
+                GROUP BY CAST(created_at AS DATE)
+                """, Timestamp.valueOf(windowStart.atStartOfDay()));
+
+        jdbcTemplate.update("DELETE FROM analytics_top_visitors");
+        jdbcTemplate.update("""
+                INSERT INTO analytics_top_visitors (visitor_id, visitor_name, review_count, rating_sum)
+                SELECT v.id, v.name, COUNT(*), SUM(r.rating)
+                FROM reviews r
+                JOIN visitors v ON v.id = r.visitor_id
+                GROUP BY v.id, v.name
+                ORDER BY COUNT(*) DESC, v.id
+                LIMIT ?
+                """, properties.topVisitors());
+
+        // Точность столбца - микросекунды: в lastRefreshedAt то же значение, что прочтут другие экземпляры
+        Instant refreshedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        jdbcTemplate.update("UPDATE analytics_refresh SET refreshed_at = ?, duration_ms = ? WHERE id = 1",
+                Timestamp.from(refreshedAt), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return new Refresh(refreshedAt, true);
+    }
+
+    private double stalenessSeconds() {
+        Instant refreshedAt = lastRefreshedAt;
+        return refreshedAt == null ? Double.NaN : Duration.between(refreshedAt, Instant.now()).toMillis() / 1000.0;
+    }
+
+    private record Refresh(Instant refreshedAt, boolean rebuilt) {}
+}
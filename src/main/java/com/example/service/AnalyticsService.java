@@ -0,0 +1,90 @@
+package com.example.service;
+
+import com.example.config.AnalyticsProperties;
+import com.example.dto.AnalyticsOverviewDTO;
+import com.example.dto.CuisineAnalyticsDTO;
+import com.example.dto.DailyReviewsDTO;
+import com.example.dto.TopVisitorDTO;
+import com.example.entity.CuisineStatsSummary;
+import com.example.repository.CuisineStatsSummaryRepository;
+import com.example.repository.DailyReviewSummaryRepository;
+import com.example.repository.TopVisitorSummaryRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+// Чтение готовых сводок аналитики; сами сводки пересобирает AnalyticsRefreshService
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Timed("app.service")
+public class AnalyticsService {
+
+    private final CuisineStatsSummaryRepository cuisineStatsRepository;
+    private final DailyReviewSummaryRepository dailyReviewRepository;
+    private final TopVisitorSummaryRepository topVisitorRepository;
+    private final AnalyticsRefreshService refreshService;
+    private final AnalyticsProperties properties;
+
+    public AnalyticsOverviewDTO getOverview() {
+        List<CuisineStatsSummary> summaries = cuisineStatsRepository.findAllByOrderByCuisineTypeAsc();
+        long restaurants = 0;
+        long reviews = 0;
+        long ratingSum = 0;
+        BigDecimal totalBill = BigDecimal.ZERO;
+        for (CuisineStatsSummary summary : summaries) {
+            restaurants += summary.getRestaurantCount();
+            reviews += summary.getReviewCount();
+            ratingSum += summary.getRatingSum();
+            totalBill = totalBill.add(summary.getTotalBill());
+        }
+
+        List<CuisineAnalyticsDTO> cuisines = summaries.stream()
+                .map(summary -> new CuisineAnalyticsDTO(
+                        summary.getCuisineType(),
+                        summary.getRestaurantCount(),
+                        summary.getReviewCount(),
+                        average(summary.getRatingSum(), summary.getReviewCount()),
+                        average(summary.getTotalBill(), summary.getRestaurantCount())))
+                .toList();
+        return new AnalyticsOverviewDTO(restaurants, reviews, average(ratingSum, reviews),
+                average(totalBill, restaurants), cuisines, refreshService.lastRefreshedAt());
+    }
+
+    public List<DailyReviewsDTO> getDailyReviews(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(properties.dailyWindowDays());
+        return dailyReviewRepository.findByReviewDateBetweenOrderByReviewDateAsc(start, end).stream()
+                .map(day -> new DailyReviewsDTO(
+                        day.getReviewDate(), day.getReviewCount(), average(day.getRatingSum(), day.getReviewCount())))
+                .toList();
+    }
+
+    public List<TopVisitorDTO> getTopVisitors(int limit) {
+        int size = Math.min(Math.max(limit, 1), properties.topVisitors());
+        return topVisitorRepository.findAllByOrderByReviewCountDescVisitorIdAsc(PageRequest.of(0, size)).stream()
+                .map(visitor -> new TopVisitorDTO(
+                        visitor.getVisitorId(),
+                        visitor.getVisitorName(),
+                        visitor.getReviewCount(),
+                        average(visitor.getRatingSum(), visitor.getReviewCount())))
+                .toList();
+    }
+
+    private static BigDecimal average(long sum, long count) {
+        return average(BigDecimal.valueOf(sum), count);
+    }
+
+    private static BigDecimal average(BigDecimal sum, long count) {
+        return count == 0
+                ? BigDecimal.ZERO
+                : sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+}
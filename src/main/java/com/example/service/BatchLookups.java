@@ -0,0 +1,48 @@
+package com.example.service;
+
+import com.example.exception.InvalidRequestException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Общие правила пакетных чтений по списку id: не более MAX_BATCH_SIZE id за запрос,
+// один запрос WHERE id IN (...) на каждые IN_CLAUSE_CHUNK_SIZE id.
+// Несуществующие id в ответ не попадают, порядок - как в запросе, повторы схлопываются
+final class BatchLookups {
+    static final int MAX_BATCH_SIZE = 1000;
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    private BatchLookups() {
+    }
+
+    // what - кого ищем, в родительном падеже множественного числа: "ресторанов", "посетителей"
+    static List<Long> distinctIds(Collection<Long> ids, String what) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("Не более " + MAX_BATCH_SIZE + " " + what + " за запрос");
+        }
+        return distinct;
+    }
+
+    static <E, D> List<D> findAllById(Collection<Long> ids, String what,
+                                      Function<List<Long>, ? extends Iterable<E>> loader,
+                                      Function<E, Long> idOf,
+                                      Function<E, D> mapper) {
+        List<Long> distinct = distinctIds(ids, what);
+        Map<Long, D> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+            for (E entity : loader.apply(chunk)) {
+                found.put(idOf.apply(entity), mapper.apply(entity));
+            }
+        }
+        return distinct.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.service;
+
+import com.example.config.DeletionProperties;
+import com.example.dto.DeletionJobDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntUnaryOperator;
+
+// Фоновое удаление посетителей и ресторанов с отзывами. Отзывы удаляются порциями по app.deletion.batch-size,
+// каждая порция - отдельная короткая транзакция: блокировки не держатся на все удаление, а запрос не ждет его конца.
+// Задания выполняются по одному в собственном потоке, чтобы несколько больших удалений не нагружали БД разом
+@Slf4j
+@Service
+public class DeletionJobService {
+
+    private final VisitorService visitorService;
+    private final RestaurantService restaurantService;
+    private final DeletionProperties properties;
+    private final ThreadPoolExecutor executor;
+    // Статусы хранятся в памяти экземпляра. Задания в очереди и в работе лежат в active и не вытесняются,
+    // сколько бы их ни накопилось; завершенные переходят в finished и вытесняются по времени и количеству
+    private final Map<String, Job> active = new ConcurrentHashMap<>();
+    private final Cache<String, Job> finished;
+
+    public DeletionJobService(VisitorService visitorService, RestaurantService restaurantService,
+                              DeletionProperties properties, MeterRegistry meterRegistry) {
+        this.visitorService = visitorService;
+        this.restaurantService = restaurantService;
+        this.properties = properties;
+        this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1,
+                Thread.ofPlatform().name("deletion-worker").daemon(true).factory());
+        this.finished = Caffeine.newBuilder()
+                .maximumSize(properties.maxRetainedJobs())
+                .expireAfterWrite(properties.jobRetention())
+                .build();
+        Gauge.builder("app.deletion.jobs.queued", executor, pool -> pool.getQueue().size())
+                .description("Задания удаления, ожидающие выполнения")
+                .register(meterRegistry);
+    }
+
+    public DeletionJobDTO deleteVisitor(Long visitorId) {
+        // Несуществующий посетитель - 404 сразу, а не FAILED в статусе задания
+        visitorService.findById(visitorId);
+        return submit("visitor", visitorId,
+                batchSize -> visitorService.deleteReviewBatch(visitorId, batchSize),
+                () -> visitorService.delete(visitorId));
+    }
+
+    public DeletionJobDTO deleteRestaurant(Long restaurantId) {
+        restaurantService.findById(restaurantId);
+        return submit("restaurant", restaurantId,
+                batchSize -> restaurantService.deleteReviewBatch(restaurantId, batchSize),
+                () -> restaurantService.delete(restaurantId));
+    }
+
+    public Optional<DeletionJobDTO> findJob(String jobId) {
+        Job job = active.get(jobId);
+        return Optional.ofNullable(job != null ? job : finished.getIfPresent(jobId)).map(Job::toDTO);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private DeletionJobDTO submit(String entityType, Long entityId, IntUnaryOperator deleteBatch, Runnable deleteEntity) {
+        Job job = new Job(UUID.randomUUID().toString(), entityType, entityId);
+        active.put(job.id, job);
+        executor.execute(() -> run(job, deleteBatch, deleteEntity));
+        return job.toDTO();
+    }
+
+    private void run(Job job, IntUnaryOperator deleteBatch, Runnable deleteEntity) {
+        job.status = DeletionJobDTO.Status.RUNNING;
+        try {
+            int deleted;
+            while ((deleted = deleteBatch.applyAsInt(properties.batchSize())) > 0) {
+                job.reviewsDeleted += deleted;
+                if (!properties.batchPause().isZero()) {
+                    Thread.sleep(properties.batchPause());
+                }
+            }
+            // Остаток, появившийся за время заданий, и сама сущность - в одной транзакции
+            deleteEntity.run();
+            job.finish(DeletionJobDTO.Status.COMPLETED, null);
+            log.info("Удаление {} {} завершено, отзывов удалено: {}", job.entityType, job.entityId, job.reviewsDeleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(DeletionJobDTO.Status.FAILED, "Задание прервано остановкой приложения");
+        } catch (RuntimeException e) {
+            job.finish(DeletionJobDTO.Status.FAILED, e.getMessage());
+            log.warn("Удаление {} {} не выполнено", job.entityType, job.entityId, e);
+        }
+        // Отсчет хранения завершенного задания идет от момента завершения; в finished оно попадает раньше,
+        // чем уходит из active, поэтому запрос статуса не промахивается между ними
+        finished.put(job.id, job);
+        active.remove(job.id);
+    }
+
+    // Изменяется только потоком задания, читается запросами статуса
+    private static final class Job {
+        final String id;
+        final String entityType;
+        final Long entityId;
+        final Instant submittedAt = Instant.now();
+        volatile DeletionJobDTO.Status status = DeletionJobDTO.Status.QUEUED;
+        volatile long reviewsDeleted;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String id, String entityType, Long entityId) {
+            this.id = id;
+            this.entityType = entityType;
+            this.entityId = entityId;
+        }
+
+        void finish(DeletionJobDTO.Status finalStatus, String failure) {
+            error = failure;
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        DeletionJobDTO toDTO() {
+            return new DeletionJobDTO(id, entityType, entityId, status, reviewsDeleted, submittedAt, finishedAt, error);
+        }
+    }
+}
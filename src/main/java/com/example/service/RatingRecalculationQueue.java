@@ -0,0 +1,128 @@
+package com.example.service;
+
+import com.example.config.RatingAsyncProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Очередь "ресторан изменился" для отложенного пересчета рейтинга.
+// Повторные события по одному ресторану склеиваются: пока id ждет в очереди, он не добавляется второй раз,
+// так что за интервал сброса каждый ресторан пересчитывается не более одного раза.
+// Постановка идет в afterCommit потока запроса, поэтому она никогда не ждет и не открывает транзакций:
+// если очередь полна, ресторан остается помеченным в overflowed и пересчитывается следующим сбросом.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.rating.async", name = "enabled", havingValue = "true")
+public class RatingRecalculationQueue {
+
+    private final RestaurantRatingService restaurantRatingService;
+    private final RatingAsyncProperties properties;
+    private final BlockingQueue<Long> queue;
+    // restaurantId -> момент постановки в очередь (System.nanoTime)
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    // Помеченные рестораны, не поместившиеся в очередь
+    private final Set<Long> overflowed = ConcurrentHashMap.newKeySet();
+    private final Timer lagTimer;
+    private final Counter overflowCounter;
+
+    public RatingRecalculationQueue(RestaurantRatingService restaurantRatingService,
+                                    RatingAsyncProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.restaurantRatingService = restaurantRatingService;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+
+        Gauge.builder("app.rating.queue.depth", pending, Map::size)
+                .description("Рестораны, ожидающие пересчета рейтинга")
+                .register(meterRegistry);
+        TimeGauge.builder("app.rating.queue.oldest.age", this, TimeUnit.NANOSECONDS,
+                        RatingRecalculationQueue::oldestPendingAgeNanos)
+                .description("Возраст самого старого непересчитанного события")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("app.rating.queue.lag")
+                .description("Задержка от записи отзыва до пересчета рейтинга")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("app.rating.queue.overflow")
+                .description("События, не поместившиеся в очередь и отложенные до следующего сброса")
+                .register(meterRegistry);
+    }
+
+    // Помечает ресторан как требующий пересчета; внутри транзакции - только после ее коммита,
+    // иначе воркер может пересчитать рейтинг раньше, чем отзыв станет видимым
+    public void markDirty(Long restaurantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(restaurantId);
+                }
+            });
+        } else {
+            enqueue(restaurantId);
+        }
+    }
+
+    private void enqueue(Long restaurantId) {
+        if (pending.putIfAbsent(restaurantId, System.nanoTime()) != null) {
+            return;
+        }
+        if (!queue.offer(restaurantId)) {
+            overflowed.add(restaurantId);
+            overflowCounter.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rating.async.flush-interval-ms:500}")
+    public void flush() {
+        List<Long> batch = new ArrayList<>(queue.size());
+        queue.drainTo(batch);
+        for (Iterator<Long> it = overflowed.iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            it.remove();
+        }
+        for (Long restaurantId : batch) {
+            // Снимаем отметку до пересчета: запись, пришедшая во время пересчета, снова попадет в очередь
+            Long enqueuedAt = pending.remove(restaurantId);
+            try {
+                restaurantRatingService.recalculate(restaurantId);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось пересчитать рейтинг ресторана {}", restaurantId, e);
+            }
+            if (enqueuedAt != null) {
+                lagTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private double oldestPendingAgeNanos() {
+        long now = System.nanoTime();
+        return pending.values().stream()
+                .mapToLong(enqueuedAt -> now - enqueuedAt)
+                .max()
+                .orElse(0);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.service;
+
+import com.example.dto.RatingCountDTO;
+import com.example.dto.RatingStatsDTO;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Статистика оценок считается в БД одним сгруппированным запросом (до пяти строк на ресторан),
+// медиана, среднее и доля 4+ выводятся из гистограммы без чтения самих отзывов
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Timed("app.service")
+public class RatingStatisticsService {
+    private static final int MIN_RATING = 1;
+    private static final int MAX_RATING = 5;
+    private static final int POSITIVE_RATING = 4;
+
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+
+    public RatingStatsDTO getStats(Long restaurantId) {
+        RatingStatsDTO stats = compute(List.of(restaurantId)).get(restaurantId);
+        // Пустая гистограмма: либо отзывов нет, либо нет ресторана - различаем только в этом случае
+        if (stats.total() == 0 && !restaurantRepository.existsById(restaurantId)) {
+            throw new EntityNotFoundException("Ресторан не найден с id: " + restaurantId);
+        }
+        return stats;
+    }
+
+    // Несуществующие id в ответ не попадают, порядок - как в запросе
+    public List<RatingStatsDTO> getStats(Collection<Long> restaurantIds) {
+        List<Long> ids = BatchLookups.distinctIds(restaurantIds, "ресторанов");
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> existing = restaurantRepository.findExistingIds(ids);
+        Map<Long, RatingStatsDTO> stats = compute(ids);
+        return ids.stream()
+                .filter(existing::contains)
+                .map(stats::get)
+                .toList();
+    }
+
+    private Map<Long, RatingStatsDTO> compute(Collection<Long> restaurantIds) {
+        Map<Long, long[]> histograms = new HashMap<>();
+        for (Long id : restaurantIds) {
+            histograms.put(id, new long[MAX_RATING + 1]);
+        }
+        for (RatingCountDTO row : reviewRepository.countByRestaurantIdsAndRating(restaurantIds)) {
+            histograms.get(row.restaurantId())[row.rating()] += row.count();
+        }
+
+        Map<Long, RatingStatsDTO> stats = new HashMap<>();
+        histograms.forEach((id, histogram) -> stats.put(id, toStats(id, histogram)));
+        return stats;
+    }
+
+    private static RatingStatsDTO toStats(Long restaurantId, long[] counts) {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        long total = 0;
+        long sum = 0;
+        long positive = 0;
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            histogram.put(rating, counts[rating]);
+            total += counts[rating];
+            sum += (long) rating * counts[rating];
+            if (rating >= POSITIVE_RATING) {
+                positive += counts[rating];
+            }
+        }
+        if (total == 0) {
+            return new RatingStatsDTO(restaurantId, 0, histogram, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+
+        BigDecimal average = BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+        // При четном числе отзывов медиана - среднее двух центральных оценок
+        int lower = ratingAt(counts, (total + 1) / 2);
+        int upper = ratingAt(counts, total / 2 + 1);
+        BigDecimal median = BigDecimal.valueOf(lower + upper).divide(BigDecimal.valueOf(2), 1, RoundingMode.UNNECESSARY);
+        BigDecimal positivePercent = BigDecimal.valueOf(positive * 100)
+                .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+        return new RatingStatsDTO(restaurantId, total, histogram, average, median, positivePercent);
+    }
+
+    // Оценка, стоящая на позиции position (с 1) в отсортированном списке всех оценок
+    private static int ratingAt(long[] counts, long position) {
+        long seen = 0;
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            seen += counts[rating];
+            if (seen >= position) {
+                return rating;
+            }
+        }
+        return MAX_RATING;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.service;
+
+import com.example.dto.RestaurantResponseDTO;
+
+// Производный индекс ресторанов в памяти (рейтинг, поиск). Его наполняет RestaurantIndexUpdater
+// из одного своего потока: методы вызываются последовательно, версии уже сверены
+public interface RestaurantIndex {
+
+    void upsert(RestaurantResponseDTO restaurant);
+
+    void remove(Long restaurantId);
+
+    // Как часто перечитывать индекс целиком - страховка от изменений в обход событий
+    long refreshIntervalMs();
+}
@@ -0,0 +1,221 @@
+package com.example.service;
+
+import com.example.datasource.PrimaryPin;
+import com.example.entity.Restaurant;
+import com.example.event.RestaurantChangedEvent;
+import com.example.event.RestaurantRatingsRebuiltEvent;
+import com.example.mapper.RestaurantMapper;
+import com.example.repository.RestaurantRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Общий источник обновлений для индексов ресторанов в памяти (RestaurantIndex).
+// Слушатель после коммита только помечает id и будит воркер: в потоке запроса нет ни транзакции,
+// ни второго соединения. Воркер - один поток с одним соединением за раз: дочитывает помеченные
+// рестораны порциями из основной БД и раскладывает по индексам, он же выполняет полные перезагрузки.
+// Все изменения индексов идут из этого потока по очереди, поэтому перезагрузка не пересекается
+// с инкрементальными обновлениями: изменения, пришедшие во время чтения, применяются после него
+// свежим чтением. Версия строки сверяется по каждому id, старые данные не затирают новые.
+// Ошибка чтения не теряет изменения - id возвращаются в очередь, повтор через RETRY_DELAY_MS
+@Slf4j
+@Component
+public class RestaurantIndexUpdater {
+    private static final int BATCH_SIZE = 500;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantMapper restaurantMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final List<RestaurantIndex> indexes;
+    private final ScheduledExecutorService worker;
+    private final Counter failures;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<RestaurantIndex> reloadRequested = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean draining;
+    // Версии, примененные к каждому индексу; меняются только потоком воркера
+    private final Map<RestaurantIndex, Map<Long, Long>> versions = new IdentityHashMap<>();
+
+    public RestaurantIndexUpdater(RestaurantRepository restaurantRepository, RestaurantMapper restaurantMapper,
+                                  EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                  List<RestaurantIndex> indexes, MeterRegistry meterRegistry) {
+        this.restaurantRepository = restaurantRepository;
+        this.restaurantMapper = restaurantMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.indexes = indexes;
+        this.worker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("restaurant-index-worker").daemon(true).factory());
+        this.failures = Counter.builder("app.restaurant.index.failures")
+                .description("Неудачные обновления индексов ресторанов в памяти (будут повторены)")
+                .register(meterRegistry);
+        Gauge.builder("app.restaurant.index.pending", dirty, Set::size)
+                .description("Рестораны, ожидающие обновления в индексах в памяти")
+                .register(meterRegistry);
+        indexes.forEach(index -> versions.put(index, new HashMap<>()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        dirty.add(event.restaurantId());
+        scheduleDrain(0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingsRebuilt(RestaurantRatingsRebuiltEvent event) {
+        reloadRequested.addAll(indexes);
+        scheduleDrain(0);
+    }
+
+    // Первая загрузка и периодические перезагрузки - в том же воркере, а не в общем планировщике
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (RestaurantIndex index : indexes) {
+            worker.scheduleWithFixedDelay(() -> requestReload(index),
+                    0, index.refreshIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void requestReload(RestaurantIndex index) {
+        reloadRequested.add(index);
+        scheduleDrain(0);
+    }
+
+    // Для тестов и метрик: все помеченные изменения применены
+    public boolean isIdle() {
+        return dirty.isEmpty() && reloadRequested.isEmpty() && !drainScheduled.get() && !draining;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void scheduleDrain(long delayMs) {
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        draining = true;
+        // Сброс до чтения очередей: пометка, пришедшая во время прохода, запланирует следующий
+        drainScheduled.set(false);
+        Set<RestaurantIndex> reloads = new HashSet<>();
+        for (Iterator<RestaurantIndex> it = reloadRequested.iterator(); it.hasNext(); ) {
+            reloads.add(it.next());
+            it.remove();
+        }
+        try {
+            if (!reloads.isEmpty()) {
+                reload(reloads);
+            }
+            List<Long> batch;
+            while (!(batch = takeDirty()).isEmpty()) {
+                refresh(batch);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Индексы ресторанов не обновлены, повтор через {} мс", RETRY_DELAY_MS, e);
+            reloadRequested.addAll(reloads);
+            scheduleDrain(RETRY_DELAY_MS);
+        } finally {
+            draining = false;
+        }
+    }
+
+    private List<Long> takeDirty() {
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        for (Iterator<Long> it = dirty.iterator(); it.hasNext() && batch.size() < BATCH_SIZE; ) {
+            batch.add(it.next());
+            it.remove();
+        }
+        return batch;
+    }
+
+    // Одна порция - один SELECT ... IN; ненайденные id удалены
+    private void refresh(List<Long> ids) {
+        List<Restaurant> restaurants = new ArrayList<>(ids.size());
+        try {
+            PrimaryPin.onPrimary(() -> restaurants.addAll(
+                    transactionTemplate.execute(status -> restaurantRepository.findAllById(ids))));
+        } catch (RuntimeException e) {
+            dirty.addAll(ids);
+            throw e;
+        }
+        Set<Long> missing = new HashSet<>(ids);
+        for (Restaurant restaurant : restaurants) {
+            missing.remove(restaurant.getId());
+            indexes.forEach(index -> apply(index, restaurant));
+        }
+        for (Long id : missing) {
+            indexes.forEach(index -> remove(index, id));
+        }
+    }
+
+    // Не read-only реплика: читаем только что закоммиченное
+    private void reload(Set<RestaurantIndex> targets) {
+        Set<Long> seen = new HashSet<>();
+        PrimaryPin.onPrimary(() -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Restaurant> restaurants = restaurantRepository.streamAll()) {
+                restaurants.forEach(restaurant -> {
+                    targets.forEach(index -> apply(index, restaurant));
+                    seen.add(restaurant.getId());
+                    entityManager.detach(restaurant);
+                });
+            }
+        }));
+        for (RestaurantIndex index : targets) {
+            versions.get(index).keySet().stream()
+                    .filter(id -> !seen.contains(id))
+                    .toList()
+                    .forEach(id -> remove(index, id));
+        }
+        log.debug("Индексы ресторанов перезагружены: {} записей, индексов {}", seen.size(), targets.size());
+    }
+
+    private void apply(RestaurantIndex index, Restaurant restaurant) {
+        Map<Long, Long> applied = versions.get(index);
+        long version = restaurant.getVersion() == null ? 0 : restaurant.getVersion();
+        Long known = applied.get(restaurant.getId());
+        if (known != null && known > version) {
+            return;
+        }
+        index.upsert(restaurantMapper.toResponseDTO(restaurant));
+        applied.put(restaurant.getId(), version);
+    }
+
+    private void remove(RestaurantIndex index, Long restaurantId) {
+        index.remove(restaurantId);
+        versions.get(index).remove(restaurantId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.example.config.LeaderboardProperties;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.entity.CuisineType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Рейтинг ресторанов в памяти: общий и по каждому виду кухни.
+// Топ-N читается из отсортированных конкурентных множеств без обращения к PostgreSQL,
+// обновления и периодические перезагрузки приходят из RestaurantIndexUpdater.
+@Service
+@RequiredArgsConstructor
+public class RestaurantLeaderboardService implements RestaurantIndex {
+    public static final int MAX_LIMIT = 100;
+
+    private static final Comparator<RestaurantResponseDTO> BY_RATING_DESC = Comparator
+            .comparing((RestaurantResponseDTO restaurant) -> ratingOf(restaurant), Comparator.reverseOrder())
+            .thenComparing(RestaurantResponseDTO::id);
+
+    private final LeaderboardProperties properties;
+
+    private final ConcurrentSkipListSet<RestaurantResponseDTO> global = new ConcurrentSkipListSet<>(BY_RATING_DESC);
+    private final Map<CuisineType, ConcurrentSkipListSet<RestaurantResponseDTO>> byCuisine = createCuisineIndex();
+    private final ConcurrentHashMap<Long, RestaurantResponseDTO> current = new ConcurrentHashMap<>();
+
+    public List<RestaurantResponseDTO> top(int limit) {
+        return global.stream().limit(clamp(limit)).toList();
+    }
+
+    public List<RestaurantResponseDTO> top(CuisineType cuisineType, int limit) {
+        return byCuisine.get(cuisineType).stream().limit(clamp(limit)).toList();
+    }
+
+    @Override
+    public long refreshIntervalMs() {
+        return properties.refreshIntervalMs();
+    }
+
+    @Override
+    public void upsert(RestaurantResponseDTO restaurant) {
+        current.compute(restaurant.id(), (id, previous) -> {
+            if (previous != null) {
+                global.remove(previous);
+                byCuisine.get(previous.cuisineType()).remove(previous);
+            }
+            global.add(restaurant);
+            byCuisine.get(restaurant.cuisineType()).add(restaurant);
+            return restaurant;
+        });
+    }
+
+    @Override
+    public void remove(Long restaurantId) {
+        current.computeIfPresent(restaurantId, (id, previous) -> {
+            global.remove(previous);
+            byCuisine.get(previous.cuisineType()).remove(previous);
+            return null;
+        });
+    }
+
+    private static int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    private static BigDecimal ratingOf(RestaurantResponseDTO restaurant) {
+        return restaurant.rating() == null ? BigDecimal.ZERO : restaurant.rating();
+    }
+
+    private static Map<CuisineType, ConcurrentSkipListSet<RestaurantResponseDTO>> createCuisineIndex() {
+        Map<CuisineType, ConcurrentSkipListSet<RestaurantResponseDTO>> index = new EnumMap<>(CuisineType.class);
+        for (CuisineType cuisineType : CuisineType.values()) {
+            index.put(cuisineType, new ConcurrentSkipListSet<>(BY_RATING_DESC));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.service;
+
+import com.example.config.CacheConfig;
+import com.example.event.RestaurantChangedEvent;
+import com.example.event.RestaurantRatingsRebuiltEvent;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
+import com.example.repository.RestaurantRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Timed("app.service")
+public class RestaurantRatingService {
+    private final RestaurantRepository restaurantRepository;
+    // Есть только при app.rating.async.enabled=true
+    private final ObjectProvider<RatingRecalculationQueue> recalculationQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeOutbox changeOutbox;
+
+    // Точка входа для записи отзывов: синхронно применяет дельту или откладывает пересчет в очередь
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, key = "#restaurantId")
+    @Timed(value = "app.rating.recompute", extraTags = {"mode", "delta"})
+    public void onReviewsChanged(Long restaurantId, long countDelta, long sumDelta) {
+        RatingRecalculationQueue queue = recalculationQueue.getIfAvailable();
+        if (queue != null) {
+            queue.markDirty(restaurantId);
+        } else {
+            applyDelta(restaurantId, countDelta, sumDelta);
+        }
+    }
+
+    // Атомарно применяет изменение отзывов к агрегатам ресторана за O(1).
+    // Инкремент выполняется одним UPDATE, поэтому параллельные записи не затирают друг друга,
+    // а блокировка строки ресторана держится только от этого оператора до коммита.
+    public void applyDelta(Long restaurantId, long countDelta, long sumDelta) {
+        if (restaurantRepository.applyRatingDelta(restaurantId, countDelta, sumDelta) == 0) {
+            throw new EntityNotFoundException("Ресторан не найден с id: " + restaurantId);
+        }
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(restaurantId));
+        changeOutbox.record(ChangedEntity.RESTAURANT, restaurantId, ChangeType.RATING_CHANGED, null);
+    }
+
+    // Полная пересборка агрегатов одного ресторана по таблице отзывов
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, key = "#restaurantId")
+    @Timed(value = "app.rating.recompute", extraTags = {"mode", "rebuild"})
+    public void rebuild(Long restaurantId) {
+        if (restaurantRepository.rebuildRatingAggregates(restaurantId) == 0) {
+            throw new EntityNotFoundException("Ресторан не найден с id: " + restaurantId);
+        }
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(restaurantId));
+        changeOutbox.record(ChangedEntity.RESTAURANT, restaurantId, ChangeType.RATING_CHANGED, null);
+    }
+
+    // Пересчет из фонового воркера в собственной транзакции; удаленный ресторан просто пропускается
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, key = "#restaurantId")
+    @Timed(value = "app.rating.recompute", extraTags = {"mode", "async"})
+    public boolean recalculate(Long restaurantId) {
+        boolean updated = restaurantRepository.rebuildRatingAggregates(restaurantId) > 0;
+        if (updated) {
+            eventPublisher.publishEvent(RestaurantChangedEvent.changed(restaurantId));
+            changeOutbox.record(ChangedEntity.RESTAURANT, restaurantId, ChangeType.RATING_CHANGED, null);
+        }
+        return updated;
+    }
+
+    // Полная пересборка агрегатов всех ресторанов, возвращает число обновленных строк
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, allEntries = true)
+    @Timed(value = "app.rating.recompute", extraTags = {"mode", "rebuild-all"})
+    public int rebuildAll() {
+        int updated = restaurantRepository.rebuildAllRatingAggregates();
+        eventPublisher.publishEvent(new RestaurantRatingsRebuiltEvent(updated));
+        changeOutbox.record(ChangedEntity.RESTAURANT, "*", ChangeType.RATINGS_REBUILT, null);
+        return updated;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.service;
+
+import com.example.entity.CuisineType;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+// Параметры поиска ресторанов; null в границах диапазона означает отсутствие ограничения
+public record RestaurantSearchQuery(
+        String text,
+        Set<CuisineType> cuisineTypes,
+        BigDecimal minBill,
+        BigDecimal maxBill,
+        BigDecimal minRating,
+        BigDecimal maxRating,
+        int page,
+        int size
+) {
+    public RestaurantSearchQuery {
+        cuisineTypes = cuisineTypes == null ? Set.of() : Set.copyOf(cuisineTypes);
+    }
+}
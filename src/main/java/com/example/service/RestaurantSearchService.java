@@ -0,0 +1,402 @@
+package com.example.service;
+
+import com.example.config.RestaurantSearchProperties;
+import com.example.dto.FacetBucketDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.RestaurantSearchResultDTO;
+import com.example.entity.CuisineType;
+import com.example.exception.InvalidRequestException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+// Полнотекстовый поиск ресторанов по названию и описанию с фасетами, целиком в памяти.
+// Инвертированный индекс хранит термин -> множество id в отсортированном словаре,
+// поэтому каждое слово запроса ищется как префикс ("пиц" находит "пицца" и "пиццерия").
+// Корзины фасетов считаются при индексации, и на запрос остается один проход по кандидатам.
+// Запрос без текста кандидатов не перебирает: документы разложены по ячейкам кухня x корзина чека x
+// корзина рейтинга, фасеты складываются из размеров ячеек (поштучно считаются только ячейки на границе
+// фильтра), а выдача берется с начала общего списка по рейтингу.
+// Обновления и периодические перезагрузки приходят из RestaurantIndexUpdater.
+@Service
+public class RestaurantSearchService implements RestaurantIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int RATING_BUCKETS = 5;
+
+    private static final Comparator<Document> BY_RATING_DESC = Comparator
+            .comparingDouble(Document::rating).reversed()
+            .thenComparingLong(document -> document.restaurant().id());
+
+    private final RestaurantSearchProperties properties;
+    private final double[] billBounds;
+
+    private final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Document> ranked = new ConcurrentSkipListSet<>(BY_RATING_DESC);
+    // Ячейка cellOf(document): кухня x корзина чека x корзина рейтинга
+    private final List<Set<Document>> cells;
+
+    public RestaurantSearchService(RestaurantSearchProperties properties) {
+        this.properties = properties;
+        this.billBounds = properties.billBuckets().stream().mapToDouble(BigDecimal::doubleValue).toArray();
+        int cellCount = CuisineType.values().length * (billBounds.length + 1) * RATING_BUCKETS;
+        this.cells = new ArrayList<>(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            cells.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @Timed("app.service")
+    public RestaurantSearchResultDTO search(RestaurantSearchQuery query) {
+        int size = Math.min(Math.max(query.size(), 1), properties.maxPageSize());
+        int page = Math.max(query.page(), 0);
+        long window = (long) (page + 1) * size;
+        if (window > properties.maxResultWindow()) {
+            throw new InvalidRequestException(
+                    "Выдача ограничена первыми " + properties.maxResultWindow() + " результатами, уточните запрос");
+        }
+
+        FacetCollector collector = new FacetCollector(query, (int) window, billBounds);
+        Set<String> terms = tokenize(query.text());
+        if (terms.isEmpty()) {
+            collectAll(collector);
+        } else {
+            collectMatching(terms, collector);
+        }
+
+        List<RestaurantResponseDTO> content = collector.page(page * size);
+        return new RestaurantSearchResultDTO(content, collector.total, page, size,
+                cuisineFacet(collector.cuisineCounts), billFacet(collector.billCounts), ratingFacet(collector.ratingCounts));
+    }
+
+    @Override
+    public long refreshIntervalMs() {
+        return properties.refreshIntervalMs();
+    }
+
+    // Фасеты - по ячейкам, выдача - первые подходящие документы из общего списка по рейтингу
+    private void collectAll(FacetCollector collector) {
+        int billBucketCount = billBounds.length + 1;
+        for (int cell = 0; cell < cells.size(); cell++) {
+            Set<Document> cellDocuments = cells.get(cell);
+            if (cellDocuments.isEmpty()) {
+                continue;
+            }
+            int ratingBucket = cell % RATING_BUCKETS;
+            int billBucket = cell / RATING_BUCKETS % billBucketCount;
+            CuisineType cuisineType = CuisineType.values()[cell / RATING_BUCKETS / billBucketCount];
+            if (!collector.countCell(cuisineType, billBucket, ratingBucket, cellDocuments.size())) {
+                cellDocuments.forEach(collector::count);
+            }
+        }
+        collector.takeRanked(ranked);
+    }
+
+    // Пересечение списков id по всем словам запроса: обходим самый короткий, в остальных проверяем вхождение
+    private void collectMatching(Set<String> terms, FacetCollector collector) {
+        List<List<Set<Long>>> matches = terms.stream()
+                .map(this::postingsForPrefix)
+                .sorted(Comparator.comparingLong(RestaurantSearchService::estimatedSize))
+                .toList();
+        if (estimatedSize(matches.get(0)) == 0) {
+            return;
+        }
+
+        List<Set<Long>> smallest = matches.get(0);
+        List<List<Set<Long>>> others = matches.subList(1, matches.size());
+        // Один ресторан может попасть в несколько терминов с общим префиксом
+        Set<Long> visited = smallest.size() > 1 ? new HashSet<>() : null;
+        for (Set<Long> ids : smallest) {
+            for (Long id : ids) {
+                if (visited != null && !visited.add(id)) {
+                    continue;
+                }
+                if (others.stream().allMatch(other -> containsAny(other, id))) {
+                    Document document = documents.get(id);
+                    if (document != null) {
+                        collector.count(document);
+                        collector.offer(document);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Set<Long>> postingsForPrefix(String prefix) {
+        return new ArrayList<>(postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values());
+    }
+
+    // Запись в индекс сериализована: обновления ресторанов редки, чтение идет без блокировок
+    @Override
+    public synchronized void upsert(RestaurantResponseDTO restaurant) {
+        Document document = toDocument(restaurant);
+        Document previous = documents.put(restaurant.id(), document);
+        if (previous != null) {
+            ranked.remove(previous);
+            cells.get(cellOf(previous)).remove(previous);
+            previous.terms().stream()
+                    .filter(term -> !document.terms().contains(term))
+                    .forEach(term -> unlink(term, restaurant.id()));
+        }
+        ranked.add(document);
+        cells.get(cellOf(document)).add(document);
+        document.terms().forEach(term -> postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(restaurant.id()));
+    }
+
+    @Override
+    public synchronized void remove(Long restaurantId) {
+        Document previous = documents.remove(restaurantId);
+        if (previous != null) {
+            ranked.remove(previous);
+            cells.get(cellOf(previous)).remove(previous);
+            previous.terms().forEach(term -> unlink(term, restaurantId));
+        }
+    }
+
+    private int cellOf(Document document) {
+        int cuisine = document.restaurant().cuisineType().ordinal();
+        return (cuisine * (billBounds.length + 1) + document.billBucket()) * RATING_BUCKETS + document.ratingBucket();
+    }
+
+    private void unlink(String term, Long restaurantId) {
+        Set<Long> ids = postings.get(term);
+        if (ids != null) {
+            ids.remove(restaurantId);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private Document toDocument(RestaurantResponseDTO restaurant) {
+        Set<String> terms = new HashSet<>(tokenize(restaurant.name()));
+        terms.addAll(tokenize(restaurant.description()));
+        double bill = restaurant.averageBill() == null ? 0 : restaurant.averageBill().doubleValue();
+        double rating = restaurant.rating() == null ? 0 : restaurant.rating().doubleValue();
+        int billBucket = 0;
+        for (double bound : billBounds) {
+            if (bill >= bound) {
+                billBucket++;
+            }
+        }
+        int ratingBucket = Math.min(Math.max((int) rating, 0), RATING_BUCKETS - 1);
+        return new Document(restaurant, Set.copyOf(terms), bill, rating, billBucket, ratingBucket);
+    }
+
+    private Map<CuisineType, Long> cuisineFacet(long[] counts) {
+        Map<CuisineType, Long> facet = new EnumMap<>(CuisineType.class);
+        for (CuisineType cuisineType : CuisineType.values()) {
+            facet.put(cuisineType, counts[cuisineType.ordinal()]);
+        }
+        return facet;
+    }
+
+    private List<FacetBucketDTO> billFacet(long[] counts) {
+        List<BigDecimal> bounds = properties.billBuckets();
+        List<FacetBucketDTO> facet = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal from = i == 0 ? null : bounds.get(i - 1);
+            BigDecimal to = i == bounds.size() ? null : bounds.get(i);
+            String key = (from == null ? "*" : from.toPlainString()) + "-" + (to == null ? "*" : to.toPlainString());
+            facet.add(new FacetBucketDTO(key, from, to, counts[i]));
+        }
+        return facet;
+    }
+
+    private List<FacetBucketDTO> ratingFacet(long[] counts) {
+        List<FacetBucketDTO> facet = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            facet.add(new FacetBucketDTO(i + "-" + (i + 1), BigDecimal.valueOf(i), BigDecimal.valueOf(i + 1), counts[i]));
+        }
+        return facet;
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static long estimatedSize(List<Set<Long>> postingLists) {
+        long size = 0;
+        for (Set<Long> ids : postingLists) {
+            size += ids.size();
+        }
+        return size;
+    }
+
+    private static boolean containsAny(List<Set<Long>> postingLists, Long id) {
+        for (Set<Long> ids : postingLists) {
+            if (ids.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double lowerBound(BigDecimal value) {
+        return value == null ? Double.NEGATIVE_INFINITY : value.doubleValue();
+    }
+
+    private static double upperBound(BigDecimal value) {
+        return value == null ? Double.POSITIVE_INFINITY : value.doubleValue();
+    }
+
+    private record Document(
+            RestaurantResponseDTO restaurant,
+            Set<String> terms,
+            double bill,
+            double rating,
+            int billBucket,
+            int ratingBucket
+    ) {}
+
+    // Один проход по кандидатам: фасеты считаются без учета собственного фильтра,
+    // в выдачу попадают документы, прошедшие все фильтры; держим только верхние window штук
+    private static final class FacetCollector {
+        private final Set<CuisineType> cuisineTypes;
+        private final double minBill;
+        private final double maxBill;
+        private final double minRating;
+        private final double maxRating;
+        private final double[] billBounds;
+        private final int window;
+        private final PriorityQueue<Document> top;
+
+        private final long[] cuisineCounts = new long[CuisineType.values().length];
+        private final long[] billCounts;
+        private final long[] ratingCounts = new long[RATING_BUCKETS];
+        private long total;
+
+        private FacetCollector(RestaurantSearchQuery query, int window, double[] billBounds) {
+            this.cuisineTypes = query.cuisineTypes();
+            this.minBill = lowerBound(query.minBill());
+            this.maxBill = upperBound(query.maxBill());
+            this.minRating = lowerBound(query.minRating());
+            this.maxRating = upperBound(query.maxRating());
+            this.billBounds = billBounds;
+            this.window = window;
+            this.top = new PriorityQueue<>(window + 1, BY_RATING_DESC.reversed());
+            this.billCounts = new long[billBounds.length + 1];
+        }
+
+        private void count(Document document) {
+            boolean cuisineMatches = cuisineMatches(document.restaurant().cuisineType());
+            boolean billMatches = document.bill() >= minBill && document.bill() <= maxBill;
+            boolean ratingMatches = document.rating() >= minRating && document.rating() <= maxRating;
+            add(document.restaurant().cuisineType(), document.billBucket(), document.ratingBucket(),
+                    cuisineMatches, billMatches, ratingMatches, 1);
+        }
+
+        // Ячейка целиком внутри или целиком вне фильтров чека и рейтинга считается по размеру;
+        // false - ячейка на границе фильтра, ее документы нужно посчитать поштучно
+        private boolean countCell(CuisineType cuisineType, int billBucket, int ratingBucket, int size) {
+            Coverage bill = coverage(billBucket == 0 ? Double.NEGATIVE_INFINITY : billBounds[billBucket - 1],
+                    billBucket == billBounds.length ? Double.POSITIVE_INFINITY : billBounds[billBucket],
+                    minBill, maxBill);
+            Coverage rating = coverage(ratingBucket == 0 ? Double.NEGATIVE_INFINITY : ratingBucket,
+                    ratingBucket == RATING_BUCKETS - 1 ? Double.POSITIVE_INFINITY : ratingBucket + 1,
+                    minRating, maxRating);
+            if (bill == Coverage.PARTIAL || rating == Coverage.PARTIAL) {
+                return false;
+            }
+            add(cuisineType, billBucket, ratingBucket, cuisineMatches(cuisineType),
+                    bill == Coverage.FULL, rating == Coverage.FULL, size);
+            return true;
+        }
+
+        private void add(CuisineType cuisineType, int billBucket, int ratingBucket,
+                         boolean cuisineMatches, boolean billMatches, boolean ratingMatches, long count) {
+            if (billMatches && ratingMatches) {
+                cuisineCounts[cuisineType.ordinal()] += count;
+            }
+            if (cuisineMatches && ratingMatches) {
+                billCounts[billBucket] += count;
+            }
+            if (cuisineMatches && billMatches) {
+                ratingCounts[ratingBucket] += count;
+            }
+            if (cuisineMatches && billMatches && ratingMatches) {
+                total += count;
+            }
+        }
+
+        private void offer(Document document) {
+            if (!matches(document)) {
+                return;
+            }
+            top.offer(document);
+            if (top.size() > window) {
+                top.poll();
+            }
+        }
+
+        // Документы идут по убыванию рейтинга: проход заканчивается, как только окно заполнено
+        // или найдены все total подходящих
+        private void takeRanked(Iterable<Document> ranked) {
+            long needed = Math.min(window, total);
+            for (Document document : ranked) {
+                if (top.size() >= needed) {
+                    return;
+                }
+                offer(document);
+            }
+        }
+
+        private boolean matches(Document document) {
+            return cuisineMatches(document.restaurant().cuisineType())
+                    && document.bill() >= minBill && document.bill() <= maxBill
+                    && document.rating() >= minRating && document.rating() <= maxRating;
+        }
+
+        private boolean cuisineMatches(CuisineType cuisineType) {
+            return cuisineTypes.isEmpty() || cuisineTypes.contains(cuisineType);
+        }
+
+        // Корзина [lower, upper) против фильтра [min, max]
+        private static Coverage coverage(double lower, double upper, double min, double max) {
+            if (upper <= min || lower > max) {
+                return Coverage.NONE;
+            }
+            if (lower >= min && upper <= max) {
+                return Coverage.FULL;
+            }
+            return Coverage.PARTIAL;
+        }
+
+        private List<RestaurantResponseDTO> page(int offset) {
+            List<Document> ranked = new ArrayList<>(top);
+            ranked.sort(BY_RATING_DESC);
+            if (offset >= ranked.size()) {
+                return List.of();
+            }
+            return ranked.subList(offset, ranked.size()).stream()
+                    .map(Document::restaurant)
+                    .toList();
+        }
+    }
+
+    private enum Coverage { FULL, NONE, PARTIAL }
+}
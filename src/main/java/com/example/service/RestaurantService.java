@@ -1,33 +1,63 @@
 package com.example.service;
 
+import com.example.config.CacheConfig;
+import com.example.config.DeletionProperties;
+import com.example.dto.CursorPageDTO;
 import com.example.dto.RestaurantRequestDTO;
 import com.example.dto.RestaurantResponseDTO;
 import com.example.entity.Restaurant;
+import com.example.event.RestaurantChangedEvent;
 import com.example.mapper.RestaurantMapper;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
 import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed("app.service")
 public class RestaurantService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final RestaurantRepository restaurantRepository;
     private final RestaurantMapper restaurantMapper;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReviewRepository reviewRepository;
+    private final DeletionProperties deletionProperties;
+    private final ChangeOutbox changeOutbox;
 
     public RestaurantResponseDTO save(RestaurantRequestDTO restaurantRequestDTO) {
         Restaurant restaurant = restaurantMapper.toEntity(restaurantRequestDTO);
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
-        return restaurantMapper.toResponseDTO(savedRestaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(savedRestaurant.getId()));
+        RestaurantResponseDTO response = restaurantMapper.toResponseDTO(savedRestaurant);
+        changeOutbox.record(ChangedEntity.RESTAURANT, response.id(), ChangeType.CREATED, response);
+        return response;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, key = "#id")
     public RestaurantResponseDTO update(Long id, RestaurantRequestDTO restaurantRequestDTO) {
-        Restaurant restaurant = restaurantRepository.findById(id)
+        Restaurant restaurant = restaurantRepository.findLockedById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Restaurant not found with id: " + id));
 
         restaurant.setName(restaurantRequestDTO.name());
@@ -36,23 +66,92 @@ public class RestaurantService {
         restaurant.setAverageBill(restaurantRequestDTO.averageBill());
 
         Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
-        return restaurantMapper.toResponseDTO(updatedRestaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(id));
+        RestaurantResponseDTO response = restaurantMapper.toResponseDTO(updatedRestaurant);
+        changeOutbox.record(ChangedEntity.RESTAURANT, id, ChangeType.UPDATED, response);
+        return response;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RESTAURANTS, key = "#id")
     public boolean delete(Long id) {
         if (!restaurantRepository.existsById(id)) {
             throw new EntityNotFoundException("Ресторан не найден с id: " + id);
         }
+        // Синхронный режим: те же порции, но в одной транзакции запроса
+        int deleted;
+        do {
+            deleted = deleteReviewBatch(id, deletionProperties.batchSize());
+        } while (deleted > 0);
         restaurantRepository.deleteById(id);
+        eventPublisher.publishEvent(RestaurantChangedEvent.deleted(id));
+        changeOutbox.record(ChangedEntity.RESTAURANT, id, ChangeType.DELETED, null);
         return true;
     }
 
+    // Порция удаления отзывов ресторана: ключи порции и один DELETE ... IN.
+    // Рейтинг не пересчитывается - ресторан удаляется следом. Возвращает число удаленных отзывов
+    public int deleteReviewBatch(Long restaurantId, int batchSize) {
+        List<Long> visitorIds = reviewRepository.findVisitorIdsByRestaurantId(
+                restaurantId, PageRequest.of(0, batchSize));
+        if (visitorIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = reviewRepository.bulkDeleteByRestaurantIdAndVisitorIds(restaurantId, visitorIds);
+        changeOutbox.recordAll(ChangedEntity.REVIEW, visitorIds.stream()
+                .map(visitorId -> ChangeOutbox.reviewKey(visitorId, restaurantId))
+                .toList(), ChangeType.DELETED);
+        return deleted;
+    }
+
+    @Transactional(readOnly = true)
     public List<RestaurantResponseDTO> findAll() {
         return restaurantRepository.findAll().stream()
                 .map(restaurantMapper::toResponseDTO)
                 .toList();
     }
 
+    // Потоковая выгрузка: каждая сущность отсоединяется после маппинга, память на запрос не растет
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<RestaurantResponseDTO> consumer) {
+        try (Stream<Restaurant> restaurants = restaurantRepository.streamAll()) {
+            restaurants.forEach(restaurant -> {
+                consumer.accept(restaurantMapper.toResponseDTO(restaurant));
+                entityManager.detach(restaurant);
+            });
+        }
+    }
+
+    // Keyset-пагинация по id: стоимость запроса не зависит от глубины
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RestaurantResponseDTO> findPageAfter(Long after, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Restaurant> restaurants = restaurantRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0L : after, PageRequest.of(0, size + 1));
+
+        List<RestaurantResponseDTO> content = restaurants.stream()
+                .limit(size)
+                .map(restaurantMapper::toResponseDTO)
+                .toList();
+        String nextCursor = restaurants.size() > size
+                ? String.valueOf(content.get(content.size() - 1).id())
+                : null;
+        return new CursorPageDTO<>(content, nextCursor, null);
+    }
+
+    // Пакетное чтение по правилам BatchLookups
+    @Transactional(readOnly = true)
+    public List<RestaurantResponseDTO> findAllById(Collection<Long> ids) {
+        return BatchLookups.findAllById(ids, "ресторанов",
+                restaurantRepository::findAllById, Restaurant::getId, restaurantMapper::toResponseDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return restaurantRepository.findVersionById(id);
+    }
+
+    // Промах кэша читается из основной БД: значение с отстающей реплики осталось бы в кэше на весь TTL
+    @Cacheable(cacheNames = CacheConfig.RESTAURANTS, key = "#id", sync = true)
     public RestaurantResponseDTO findById(Long id) {
         Restaurant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ресторан не найден с id: " + id));
@@ -60,6 +159,7 @@ public class RestaurantService {
     }
 
     // Метод для поиска ресторанов с минимальным рейтингом (Требование 3)
+    @Transactional(readOnly = true)
     public List<RestaurantResponseDTO> findRestaurantsWithMinRating(BigDecimal minRating) {
         return restaurantRepository.findByRatingGreaterThanEqual(minRating).stream()
                 .map(restaurantMapper::toResponseDTO)
@@ -67,6 +167,7 @@ public class RestaurantService {
     }
 
     // Альтернативный метод с использованием JPQL
+    @Transactional(readOnly = true)
     public List<RestaurantResponseDTO> findRestaurantsWithMinRatingJpql(BigDecimal minRating) {
         return restaurantRepository.findRestaurantsWithMinRating(minRating).stream()
                 .map(restaurantMapper::toResponseDTO)
@@ -0,0 +1,39 @@
+package com.example.service;
+
+import com.example.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Непрозрачный курсор продолжения для страниц отзывов ресторана:
+// направление сортировки и ключ (rating, visitorId) последней отданной строки
+record ReviewCursor(boolean ascending, int rating, long visitorId) {
+
+    static ReviewCursor first(boolean ascending) {
+        return ascending
+                ? new ReviewCursor(true, Integer.MIN_VALUE, Long.MIN_VALUE)
+                : new ReviewCursor(false, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    static ReviewCursor decode(String token, boolean ascending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Некорректный курсор", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(ascending ? "a" : "d")) {
+            throw new InvalidRequestException("Курсор не подходит к запросу");
+        }
+        try {
+            return new ReviewCursor(ascending, Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Некорректный курсор", e);
+        }
+    }
+
+    String encode() {
+        String raw = (ascending ? "a" : "d") + ":" + rating + ":" + visitorId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
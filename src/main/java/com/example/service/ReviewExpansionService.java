@@ -0,0 +1,96 @@
+package com.example.service;
+
+import com.example.dto.CursorPageDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewResponseDTO;
+import com.example.dto.VisitorResponseDTO;
+import com.example.exception.InvalidRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Раскрытие связанных сущностей в ответах с отзывами (expand=restaurant,visitor):
+// id собираются со всей выдачи и читаются одним пакетным запросом на тип, а не запросом на строку
+@Service
+@RequiredArgsConstructor
+public class ReviewExpansionService {
+
+    public enum Expansion {
+        RESTAURANT, VISITOR
+    }
+
+    private final RestaurantService restaurantService;
+    private final VisitorService visitorService;
+
+    // Значения expand без учета регистра, пустые элементы пропускаются
+    public static Set<Expansion> parse(Collection<String> expand) {
+        Set<Expansion> expansions = EnumSet.noneOf(Expansion.class);
+        if (expand == null) {
+            return expansions;
+        }
+        for (String value : expand) {
+            String name = value.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                expansions.add(Expansion.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Неизвестное значение expand: " + name
+                        + ", допустимы restaurant и visitor");
+            }
+        }
+        return expansions;
+    }
+
+    public ReviewResponseDTO expand(ReviewResponseDTO review, Set<Expansion> expansions) {
+        return expand(List.of(review), expansions).get(0);
+    }
+
+    public Page<ReviewResponseDTO> expand(Page<ReviewResponseDTO> page, Set<Expansion> expansions) {
+        if (expansions.isEmpty()) {
+            return page;
+        }
+        return new PageImpl<>(expand(page.getContent(), expansions), page.getPageable(), page.getTotalElements());
+    }
+
+    public CursorPageDTO<ReviewResponseDTO> expand(CursorPageDTO<ReviewResponseDTO> page, Set<Expansion> expansions) {
+        if (expansions.isEmpty()) {
+            return page;
+        }
+        return new CursorPageDTO<>(expand(page.content(), expansions), page.nextCursor(), page.totalEstimate());
+    }
+
+    public List<ReviewResponseDTO> expand(List<ReviewResponseDTO> reviews, Set<Expansion> expansions) {
+        if (expansions.isEmpty() || reviews.isEmpty()) {
+            return reviews;
+        }
+        Map<Long, RestaurantResponseDTO> restaurants = expansions.contains(Expansion.RESTAURANT)
+                ? restaurantService.findAllById(ids(reviews, ReviewResponseDTO::restaurantId)).stream()
+                        .collect(Collectors.toMap(RestaurantResponseDTO::id, Function.identity()))
+                : Map.of();
+        Map<Long, VisitorResponseDTO> visitors = expansions.contains(Expansion.VISITOR)
+                ? visitorService.findAllById(ids(reviews, ReviewResponseDTO::visitorId)).stream()
+                        .collect(Collectors.toMap(VisitorResponseDTO::id, Function.identity()))
+                : Map.of();
+        return reviews.stream()
+                .map(review -> review.withRelated(
+                        visitors.get(review.visitorId()),
+                        restaurants.get(review.restaurantId())))
+                .toList();
+    }
+
+    private static Set<Long> ids(List<ReviewResponseDTO> reviews, Function<ReviewResponseDTO, Long> id) {
+        return reviews.stream().map(id).collect(Collectors.toSet());
+    }
+}
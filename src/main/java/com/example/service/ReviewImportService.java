@@ -0,0 +1,212 @@
+package com.example.service;
+
+import com.example.config.ReviewImportProperties;
+import com.example.dto.BulkImportErrorDTO;
+import com.example.dto.BulkImportReportDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.entity.Restaurant;
+import com.example.entity.Review;
+import com.example.entity.ReviewId;
+import com.example.entity.Visitor;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import com.example.repository.VisitorRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Пакетный импорт отзывов (JSON-массив или NDJSON).
+// Вход читается потоком и обрабатывается порциями: существование посетителей, ресторанов и дублей
+// проверяется одним запросом на порцию, вставки уходят JDBC-батчами, а рейтинг каждого затронутого
+// ресторана обновляется один раз на порцию в той же транзакции, что и вставки.
+@Service
+@RequiredArgsConstructor
+public class ReviewImportService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VisitorRepository visitorRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRatingService restaurantRatingService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ReviewImportProperties properties;
+    private final ChangeOutbox changeOutbox;
+
+    public BulkImportReportDTO importReviews(InputStream input) throws IOException {
+        long startedAt = System.nanoTime();
+        ImportReport report = new ImportReport(properties.maxReportedErrors());
+
+        try (MappingIterator<ReviewRequestDTO> rows = objectMapper.readerFor(ReviewRequestDTO.class).readValues(input)) {
+            List<ImportRow> chunk = new ArrayList<>(properties.chunkSize());
+            long rowNumber = 0;
+            while (true) {
+                ReviewRequestDTO request;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    rowNumber++;
+                    request = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    // После ошибки разбора позиция в потоке не гарантирована, поэтому дальше не читаем
+                    report.received++;
+                    report.fail(rowNumber, null, null, "Некорректный JSON, импорт остановлен: " + e.getOriginalMessage());
+                    break;
+                }
+                report.received++;
+                chunk.add(new ImportRow(rowNumber, request));
+                if (chunk.size() == properties.chunkSize()) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, report);
+            }
+        }
+
+        long durationNanos = System.nanoTime() - startedAt;
+        double seconds = durationNanos / 1_000_000_000.0;
+        return new BulkImportReportDTO(
+                report.received,
+                report.imported,
+                report.failed,
+                report.errors,
+                report.errorsTruncated,
+                durationNanos / 1_000_000,
+                seconds > 0 ? report.imported / seconds : 0);
+    }
+
+    private void importChunk(List<ImportRow> chunk, ImportReport report) {
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.request() == null) {
+                report.fail(row.row(), null, null, "Пустая строка импорта");
+                continue;
+            }
+            Set<ConstraintViolation<ReviewRequestDTO>> violations = validator.validate(row.request());
+            if (violations.isEmpty()) {
+                valid.add(row);
+            } else {
+                report.fail(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<Long> visitorIds = valid.stream().map(row -> row.request().visitorId()).collect(Collectors.toSet());
+        Set<Long> restaurantIds = valid.stream().map(row -> row.request().restaurantId()).collect(Collectors.toSet());
+        Set<Long> existingVisitors = visitorRepository.findExistingIds(visitorIds);
+        Set<Long> existingRestaurants = restaurantRepository.findExistingIds(restaurantIds);
+        Set<ReviewId> taken = new HashSet<>(reviewRepository.findExistingIds(visitorIds, restaurantIds));
+
+        List<ImportRow> accepted = new ArrayList<>(valid.size());
+        for (ImportRow row : valid) {
+            ReviewRequestDTO request = row.request();
+            if (!existingVisitors.contains(request.visitorId())) {
+                report.fail(row, "Посетитель не найден с id: " + request.visitorId());
+            } else if (!existingRestaurants.contains(request.restaurantId())) {
+                report.fail(row, "Ресторан не найден с id: " + request.restaurantId());
+            } else if (!taken.add(new ReviewId(request.visitorId(), request.restaurantId()))) {
+                report.fail(row, "Посетитель уже оставил отзыв");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(accepted));
+            report.imported += accepted.size();
+        } catch (DataAccessException | PersistenceException e) {
+            // Например, параллельная запись того же отзыва: порция откатывается целиком
+            entityManager.clear();
+            String message = "Порция отклонена базой данных: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            accepted.forEach(row -> report.fail(row, message));
+        }
+    }
+
+    private void insert(List<ImportRow> rows) {
+        // restaurantId -> {число новых отзывов, сумма оценок}
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (ImportRow row : rows) {
+            ReviewRequestDTO request = row.request();
+            Review review = new Review();
+            review.setVisitor(entityManager.getReference(Visitor.class, request.visitorId()));
+            review.setRestaurant(entityManager.getReference(Restaurant.class, request.restaurantId()));
+            review.setRating(request.rating());
+            review.setReviewText(request.reviewText());
+            // persist, а не repository.save: для составного ключа save делает merge с лишним SELECT на строку
+            entityManager.persist(review);
+
+            long[] delta = deltas.computeIfAbsent(request.restaurantId(), id -> new long[2]);
+            delta[0]++;
+            delta[1] += request.rating();
+        }
+        entityManager.flush();
+        deltas.forEach((restaurantId, delta) ->
+                restaurantRatingService.onReviewsChanged(restaurantId, delta[0], delta[1]));
+        changeOutbox.recordAll(ChangedEntity.REVIEW, rows.stream()
+                .map(row -> ChangeOutbox.reviewKey(row.request().visitorId(), row.request().restaurantId()))
+                .toList(), ChangeType.CREATED);
+        entityManager.clear();
+    }
+
+    private record ImportRow(long row, ReviewRequestDTO request) {}
+
+    private static final class ImportReport {
+        private final int maxErrors;
+        private final List<BulkImportErrorDTO> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long failed;
+        private boolean errorsTruncated;
+
+        private ImportReport(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void fail(ImportRow row, String message) {
+            fail(row.row(), row.request().visitorId(), row.request().restaurantId(), message);
+        }
+
+        private void fail(long row, Long visitorId, Long restaurantId, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new BulkImportErrorDTO(row, visitorId, restaurantId, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
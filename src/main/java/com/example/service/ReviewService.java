@@ -1,17 +1,25 @@
 package com.example.service;
 
+import com.example.dto.CursorPageDTO;
 import com.example.dto.ReviewRequestDTO;
 import com.example.dto.ReviewResponseDTO;
+import com.example.dto.ReviewsFingerprintDTO;
+import com.example.dto.VisitorReviewDTO;
 import com.example.entity.Review;
-import com.example.entity.ReviewId;
-import com.example.entity.Restaurant;
-import com.example.entity.Visitor;
+import com.example.exception.ConflictException;
+import com.example.exception.InvalidRequestException;
 import com.example.mapper.ReviewMapper;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
 import com.example.repository.RestaurantRepository;
 import com.example.repository.ReviewRepository;
 import com.example.repository.VisitorRepository;
 import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,82 +27,225 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed("app.service")
 public class ReviewService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ReviewRepository reviewRepository;
     private final RestaurantRepository restaurantRepository;
     private final VisitorRepository visitorRepository;
     private final ReviewMapper reviewMapper;
+    private final RestaurantRatingService restaurantRatingService;
+    private final ChangeOutbox changeOutbox;
 
+    // Один INSERT ... ON CONFLICT DO NOTHING вместо проверок существования и дубля перед вставкой:
+    // посетителя и ресторана проверяют внешние ключи, дубль - первичный ключ, поэтому параллельные POST
+    // одного отзыва не проскакивают мимо проверки, а проигравший получает 409
     public ReviewResponseDTO save(ReviewRequestDTO reviewRequestDTO) {
-        // Проверяем существование посетителя и ресторана
-        Visitor visitor = visitorRepository.findById(reviewRequestDTO.visitorId())
-                .orElseThrow(() -> new EntityNotFoundException("Посетитель не найден с id: " + reviewRequestDTO.visitorId()));
-
-        Restaurant restaurant = restaurantRepository.findById(reviewRequestDTO.restaurantId())
-                .orElseThrow(() -> new EntityNotFoundException("Ресторан не найден с id: " + reviewRequestDTO.restaurantId()));
+        if (!insert(reviewRequestDTO)) {
+            throw new ConflictException("Посетитель уже оставил отзыв");
+        }
+        return new ReviewResponseDTO(reviewRequestDTO.visitorId(), reviewRequestDTO.restaurantId(),
+                reviewRequestDTO.rating(), reviewRequestDTO.reviewText());
+    }
 
-        // Проверяем, не оставлял ли уже пользователь отзыв для этого ресторана
-        if (reviewRepository.existsByVisitorIdAndRestaurantId(
-                reviewRequestDTO.visitorId(), reviewRequestDTO.restaurantId())) {
-            throw new IllegalStateException("Посетитель уже оставил отзыв");
+    // PUT в режиме upsert: отсутствующий отзыв создается той же вставкой, существующий обновляется под блокировкой
+    public Upserted upsert(Long visitorId, Long restaurantId, ReviewRequestDTO reviewRequestDTO) {
+        ReviewRequestDTO request = new ReviewRequestDTO(
+                visitorId, restaurantId, reviewRequestDTO.rating(), reviewRequestDTO.reviewText());
+        if (insert(request)) {
+            return new Upserted(new ReviewResponseDTO(visitorId, restaurantId, request.rating(), request.reviewText()),
+                    true);
         }
+        return new Upserted(update(visitorId, restaurantId, request), false);
+    }
 
-        Review review = reviewMapper.toEntity(reviewRequestDTO);
-        review.setVisitor(visitor);
-        review.setRestaurant(restaurant);
+    public record Upserted(ReviewResponseDTO review, boolean created) {}
 
-        Review savedReview = reviewRepository.save(review);
-        updateRestaurantRating(restaurant.getId());
+    private boolean insert(ReviewRequestDTO request) {
+        int inserted;
+        try {
+            inserted = reviewRepository.insertIfAbsent(
+                    request.visitorId(), request.restaurantId(), request.rating(), request.reviewText());
+        } catch (DataIntegrityViolationException e) {
+            throw missingReference(e, request);
+        }
+        if (inserted > 0) {
+            changeOutbox.record(ChangedEntity.REVIEW, ChangeOutbox.reviewKey(request.visitorId(), request.restaurantId()),
+                    ChangeType.CREATED, new ReviewResponseDTO(
+                            request.visitorId(), request.restaurantId(), request.rating(), request.reviewText()));
+            restaurantRatingService.onReviewsChanged(request.restaurantId(), 1, request.rating());
+        }
+        return inserted > 0;
+    }
 
-        return reviewMapper.toResponseDTO(savedReview);
+    // Нарушение внешнего ключа при вставке - ссылка на несуществующего посетителя или ресторан.
+    // Имена ограничений из V1; на базах после baseline-on-migrate их приводит к этим именам V8
+    private static RuntimeException missingReference(DataIntegrityViolationException e, ReviewRequestDTO request) {
+        String cause = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).toLowerCase(Locale.ROOT);
+        if (cause.contains("fk_reviews_visitor")) {
+            return new EntityNotFoundException("Посетитель не найден с id: " + request.visitorId());
+        }
+        if (cause.contains("fk_reviews_restaurant")) {
+            return new EntityNotFoundException("Ресторан не найден с id: " + request.restaurantId());
+        }
+        return e;
     }
 
     public ReviewResponseDTO update(Long visitorId, Long restaurantId, ReviewRequestDTO reviewRequestDTO) {
-        Review review = reviewRepository.findByVisitorIdAndRestaurantId(visitorId, restaurantId)
+        Review review = reviewRepository.findLockedByVisitorIdAndRestaurantId(visitorId, restaurantId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Отзыв не найден у visitorId: " + visitorId + " и у restaurantId: " + restaurantId));
 
+        int previousRating = review.getRating();
         review.setRating(reviewRequestDTO.rating());
         review.setReviewText(reviewRequestDTO.reviewText());
 
         Review updatedReview = reviewRepository.save(review);
-        updateRestaurantRating(restaurantId);
+        if (previousRating != updatedReview.getRating()) {
+            restaurantRatingService.onReviewsChanged(restaurantId, 0, updatedReview.getRating() - previousRating);
+        }
 
-        return reviewMapper.toResponseDTO(updatedReview);
+        ReviewResponseDTO response = reviewMapper.toResponseDTO(updatedReview);
+        changeOutbox.record(ChangedEntity.REVIEW, ChangeOutbox.reviewKey(visitorId, restaurantId),
+                ChangeType.UPDATED, response);
+        return response;
     }
 
     public void delete(Long visitorId, Long restaurantId) {
-        ReviewId reviewId = new ReviewId(visitorId, restaurantId);
-        if (!reviewRepository.existsById(reviewId)) {
-            throw new EntityNotFoundException(
-                    "Отзыв не найден у visitorId: " + visitorId + " и у restaurantId: " + restaurantId);
-        }
+        Review review = reviewRepository.findLockedByVisitorIdAndRestaurantId(visitorId, restaurantId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Отзыв не найден у visitorId: " + visitorId + " и у restaurantId: " + restaurantId));
 
-        reviewRepository.deleteById(reviewId);
-        updateRestaurantRating(restaurantId);
+        reviewRepository.delete(review);
+        restaurantRatingService.onReviewsChanged(restaurantId, -1, -review.getRating());
+        changeOutbox.record(ChangedEntity.REVIEW, ChangeOutbox.reviewKey(visitorId, restaurantId),
+                ChangeType.DELETED, null);
     }
 
+    // Чтения отзывов идут DTO-проекциями: один SELECT без загрузки сущностей и прокси
+    @Transactional(readOnly = true)
     public List<ReviewResponseDTO> findAll() {
-        return reviewRepository.findAll().stream()
-                .map(reviewMapper::toResponseDTO)
-                .toList();
+        return reviewRepository.findAllResponses();
+    }
+
+    // Потоковая выгрузка проекцией: сущности в контекст персистентности не попадают, память на запрос не растет
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<ReviewResponseDTO> consumer) {
+        try (Stream<ReviewResponseDTO> reviews = reviewRepository.streamAllResponses()) {
+            reviews.forEach(consumer);
+        }
+    }
+
+    // Keyset-пагинация по первичному ключу; курсор имеет вид "visitorId:restaurantId"
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ReviewResponseDTO> findPageAfter(String after, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long afterVisitorId = 0L;
+        long afterRestaurantId = 0L;
+        if (after != null && !after.isBlank()) {
+            String[] parts = after.split(":");
+            if (parts.length != 2) {
+                throw new InvalidRequestException("Курсор должен иметь вид visitorId:restaurantId");
+            }
+            try {
+                afterVisitorId = Long.parseLong(parts[0]);
+                afterRestaurantId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Курсор должен иметь вид visitorId:restaurantId", e);
+            }
+        }
+
+        List<ReviewResponseDTO> reviews = reviewRepository.findAfterKey(
+                afterVisitorId, afterRestaurantId, PageRequest.of(0, size + 1));
+
+        List<ReviewResponseDTO> content = reviews.subList(0, Math.min(size, reviews.size()));
+        String nextCursor = null;
+        if (reviews.size() > size) {
+            ReviewResponseDTO last = content.get(content.size() - 1);
+            nextCursor = last.visitorId() + ":" + last.restaurantId();
+        }
+        return new CursorPageDTO<>(content, nextCursor, null);
     }
 
+    // Seek-пагинация отзывов ресторана по оценке: задержка не растет с глубиной страницы
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ReviewResponseDTO> scrollReviewsByRestaurant(
+            Long restaurantId, String cursor, int size, boolean ascending, boolean withTotal) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        ReviewCursor position = cursor == null || cursor.isBlank()
+                ? ReviewCursor.first(ascending)
+                : ReviewCursor.decode(cursor, ascending);
+
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<ReviewResponseDTO> reviews = ascending
+                ? reviewRepository.findByRestaurantAfterAsc(restaurantId, position.rating(), position.visitorId(), pageable)
+                : reviewRepository.findByRestaurantAfterDesc(restaurantId, position.rating(), position.visitorId(), pageable);
+
+        List<ReviewResponseDTO> content = reviews.subList(0, Math.min(pageSize, reviews.size()));
+        String nextCursor = null;
+        if (reviews.size() > pageSize) {
+            ReviewResponseDTO last = content.get(content.size() - 1);
+            nextCursor = new ReviewCursor(ascending, last.rating(), last.visitorId()).encode();
+        }
+        Long totalEstimate = withTotal
+                ? restaurantRepository.findReviewCountById(restaurantId).orElse(0L)
+                : null;
+        return new CursorPageDTO<>(content, nextCursor, totalEstimate);
+    }
+
+    // История отзывов посетителя, новые первыми, с названиями ресторанов; seek-пагинация без OFFSET
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VisitorReviewDTO> findVisitorHistory(Long visitorId, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        boolean firstPage = cursor == null || cursor.isBlank();
+        VisitorReviewCursor position = firstPage ? VisitorReviewCursor.first() : VisitorReviewCursor.decode(cursor);
+
+        List<VisitorReviewDTO> reviews = reviewRepository.findHistoryByVisitorBefore(
+                visitorId, position.createdAt(), position.restaurantId(), PageRequest.of(0, pageSize + 1));
+        // Пустая первая страница: либо отзывов нет, либо нет посетителя - различаем только в этом случае
+        if (reviews.isEmpty() && firstPage && !visitorRepository.existsById(visitorId)) {
+            throw new EntityNotFoundException("Посетитель не найден с id: " + visitorId);
+        }
+
+        List<VisitorReviewDTO> content = reviews.subList(0, Math.min(pageSize, reviews.size()));
+        String nextCursor = null;
+        if (reviews.size() > pageSize) {
+            VisitorReviewDTO last = content.get(content.size() - 1);
+            nextCursor = new VisitorReviewCursor(last.createdAt(), last.restaurantId()).encode();
+        }
+        return new CursorPageDTO<>(content, nextCursor, null);
+    }
+
+    @Transactional(readOnly = true)
     public ReviewResponseDTO findById(Long visitorId, Long restaurantId) {
-        Review review = reviewRepository.findByVisitorIdAndRestaurantId(visitorId, restaurantId)
+        return reviewRepository.findResponseById(visitorId, restaurantId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Отзыв не найден у visitorId: " + visitorId + " и у restaurantId: " + restaurantId));
-        return reviewMapper.toResponseDTO(review);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long visitorId, Long restaurantId) {
+        return reviewRepository.findVersion(visitorId, restaurantId);
+    }
+
+    // Отпечаток отзывов ресторана для ETag страниц
+    @Transactional(readOnly = true)
+    public ReviewsFingerprintDTO getReviewsFingerprint(Long restaurantId) {
+        return reviewRepository.findFingerprintByRestaurantId(restaurantId);
     }
 
     // Метод для получения отзывов с пагинацией и сортировкой (Требование 2)
+    @Transactional(readOnly = true)
     public Page<ReviewResponseDTO> getReviewsByRestaurant(Long restaurantId, int page, int size, String sortBy, String direction) {
         Sort sort = direction.equalsIgnoreCase("desc")
                 ? Sort.by(sortBy).descending()
@@ -102,43 +253,17 @@ public class ReviewService {
 
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Review> reviews = reviewRepository.findByRestaurantId(restaurantId, pageable);
-
-        return reviews.map(reviewMapper::toResponseDTO);
+        return reviewRepository.findResponsesByRestaurantId(restaurantId, pageable);
     }
 
     // Метод с кастомной сортировкой по рейтингу
+    @Transactional(readOnly = true)
     public Page<ReviewResponseDTO> getReviewsByRestaurantSortedByRating(
             Long restaurantId, int page, int size, boolean ascending) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Review> reviews = ascending
+        return ascending
                 ? reviewRepository.findReviewsByRestaurantSortedByRatingAsc(restaurantId, pageable)
                 : reviewRepository.findReviewsByRestaurantSortedByRatingDesc(restaurantId, pageable);
-
-        return reviews.map(reviewMapper::toResponseDTO);
-    }
-
-    private void updateRestaurantRating(Long restaurantId) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new EntityNotFoundException("Ресторан не найден с id: " + restaurantId));
-
-        List<Review> reviews = restaurant.getReviews();
-
-        if (!reviews.isEmpty()) {
-            double averageRating = reviews.stream()
-                    .mapToInt(Review::getRating)
-                    .average()
-                    .orElse(0.0);
-
-            BigDecimal roundedRating = BigDecimal.valueOf(averageRating)
-                    .setScale(2, RoundingMode.HALF_UP);
-
-            restaurant.setRating(roundedRating);
-            restaurantRepository.save(restaurant);
-        } else {
-            restaurant.setRating(BigDecimal.ZERO);
-            restaurantRepository.save(restaurant);
-        }
     }
 }
\ No newline at end of file
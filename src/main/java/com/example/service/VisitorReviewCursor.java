@@ -0,0 +1,43 @@
+package com.example.service;
+
+import com.example.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+// Непрозрачный курсор истории отзывов посетителя: ключ (createdAt, restaurantId) последней отданной строки
+record VisitorReviewCursor(Instant createdAt, long restaurantId) {
+
+    // Позже любого реального отзыва; Instant.MAX не помещается в TIMESTAMP
+    private static final Instant LATEST = Instant.parse("9999-12-31T23:59:59Z");
+
+    static VisitorReviewCursor first() {
+        return new VisitorReviewCursor(LATEST, Long.MAX_VALUE);
+    }
+
+    static VisitorReviewCursor decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Некорректный курсор", e);
+        }
+        if (parts.length != 3) {
+            throw new InvalidRequestException("Некорректный курсор");
+        }
+        try {
+            return new VisitorReviewCursor(
+                    Instant.ofEpochSecond(Long.parseLong(parts[0]), Integer.parseInt(parts[1])),
+                    Long.parseLong(parts[2]));
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new InvalidRequestException("Некорректный курсор", e);
+        }
+    }
+
+    String encode() {
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + restaurantId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
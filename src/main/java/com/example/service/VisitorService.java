@@ -1,30 +1,60 @@
 package com.example.service;
 
+import com.example.config.CacheConfig;
+import com.example.config.DeletionProperties;
+import com.example.dto.CursorPageDTO;
 import com.example.dto.VisitorRequestDTO;
 import com.example.dto.VisitorResponseDTO;
+import com.example.entity.Review;
 import com.example.entity.Visitor;
 import com.example.mapper.VisitorMapper;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.ChangeType;
+import com.example.outbox.ChangedEntity;
+import com.example.repository.ReviewRepository;
 import com.example.repository.VisitorRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed("app.service")
 public class VisitorService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final VisitorRepository visitorRepository;
     private final VisitorMapper visitorMapper;
+    private final EntityManager entityManager;
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRatingService restaurantRatingService;
+    private final DeletionProperties deletionProperties;
+    private final ChangeOutbox changeOutbox;
 
     public VisitorResponseDTO save(VisitorRequestDTO visitorRequestDTO) {
         Visitor visitor = visitorMapper.toEntity(visitorRequestDTO);
         Visitor savedVisitor = visitorRepository.save(visitor);
-        return visitorMapper.toResponseDTO(savedVisitor);
+        VisitorResponseDTO response = visitorMapper.toResponseDTO(savedVisitor);
+        changeOutbox.record(ChangedEntity.VISITOR, response.id(), ChangeType.CREATED, response);
+        return response;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.VISITORS, key = "#id")
     public VisitorResponseDTO update(Long id, VisitorRequestDTO visitorRequestDTO) {
         Visitor visitor = visitorRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Посетитель не найден с id: " + id));
@@ -34,23 +64,97 @@ public class VisitorService {
         visitor.setGender(visitorRequestDTO.gender());
 
         Visitor updatedVisitor = visitorRepository.save(visitor);
-        return visitorMapper.toResponseDTO(updatedVisitor);
+        VisitorResponseDTO response = visitorMapper.toResponseDTO(updatedVisitor);
+        changeOutbox.record(ChangedEntity.VISITOR, id, ChangeType.UPDATED, response);
+        return response;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.VISITORS, key = "#id")
     public boolean delete(Long id) {
         if (!visitorRepository.existsById(id)) {
             throw new EntityNotFoundException("Посетитель не найден с id: " + id);
         }
+        // Синхронный режим: те же порции, но в одной транзакции запроса
+        int deleted;
+        do {
+            deleted = deleteReviewBatch(id, deletionProperties.batchSize());
+        } while (deleted > 0);
         visitorRepository.deleteById(id);
+        changeOutbox.record(ChangedEntity.VISITOR, id, ChangeType.DELETED, null);
         return true;
     }
 
+    // Порция удаления отзывов посетителя: порция под блокировкой, один DELETE ... IN и вычитание
+    // удаленных оценок из агрегатов ресторанов порции за O(1) на ресторан, без пересборки по таблице отзывов.
+    // У посетителя не больше одного отзыва на ресторан, поэтому дельта ресторана - один отзыв и его оценка.
+    // Возвращает число удаленных отзывов, 0 - отзывов не осталось
+    public int deleteReviewBatch(Long visitorId, int batchSize) {
+        Map<Long, Integer> ratings = new LinkedHashMap<>();
+        for (Review review : reviewRepository.findLockedBatchByVisitorId(visitorId, PageRequest.of(0, batchSize))) {
+            ratings.put(review.getRestaurant().getId(), review.getRating());
+            // Строки удаляются bulk DELETE мимо контекста; синхронное удаление не копит их в памяти
+            entityManager.detach(review);
+        }
+        if (ratings.isEmpty()) {
+            return 0;
+        }
+        int deleted = reviewRepository.bulkDeleteByVisitorIdAndRestaurantIds(visitorId, ratings.keySet());
+        changeOutbox.recordAll(ChangedEntity.REVIEW, ratings.keySet().stream()
+                .map(restaurantId -> ChangeOutbox.reviewKey(visitorId, restaurantId))
+                .toList(), ChangeType.DELETED);
+        ratings.forEach((restaurantId, rating) -> restaurantRatingService.onReviewsChanged(restaurantId, -1, -rating));
+        return deleted;
+    }
+
+    @Transactional(readOnly = true)
     public List<VisitorResponseDTO> findAll() {
         return visitorRepository.findAll().stream()
                 .map(visitorMapper::toResponseDTO)
                 .toList();
     }
 
+    // Потоковая выгрузка: каждая сущность отсоединяется после маппинга, память на запрос не растет
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<VisitorResponseDTO> consumer) {
+        try (Stream<Visitor> visitors = visitorRepository.streamAll()) {
+            visitors.forEach(visitor -> {
+                consumer.accept(visitorMapper.toResponseDTO(visitor));
+                entityManager.detach(visitor);
+            });
+        }
+    }
+
+    // Keyset-пагинация по id: стоимость запроса не зависит от глубины
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VisitorResponseDTO> findPageAfter(Long after, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Visitor> visitors = visitorRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0L : after, PageRequest.of(0, size + 1));
+
+        List<VisitorResponseDTO> content = visitors.stream()
+                .limit(size)
+                .map(visitorMapper::toResponseDTO)
+                .toList();
+        String nextCursor = visitors.size() > size
+                ? String.valueOf(content.get(content.size() - 1).id())
+                : null;
+        return new CursorPageDTO<>(content, nextCursor, null);
+    }
+
+    // Пакетное чтение по правилам BatchLookups
+    @Transactional(readOnly = true)
+    public List<VisitorResponseDTO> findAllById(Collection<Long> ids) {
+        return BatchLookups.findAllById(ids, "посетителей",
+                visitorRepository::findAllById, Visitor::getId, visitorMapper::toResponseDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return visitorRepository.findVersionById(id);
+    }
+
+    // Промах кэша читается из основной БД: значение с отстающей реплики осталось бы в кэше на весь TTL
+    @Cacheable(cacheNames = CacheConfig.VISITORS, key = "#id", sync = true)
     public VisitorResponseDTO findById(Long id) {
         Visitor visitor = visitorRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Посетитель не найден с id: " + id));
@@ -0,0 +1,46 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Базы, поднятые через baseline-on-migrate, получили схему от Hibernate (ddl-auto) и V1 на них не выполнялся:
+// внешние ключи reviews называются сгенерированными именами вида fk3k5...
+// ReviewService узнает, на какого посетителя или ресторан не нашлось ссылки, по имени ограничения,
+// поэтому ключи переименовываются в имена из V1. Имена ищутся через метаданные JDBC -
+// на PostgreSQL и на H2 одинаково; на базах, созданных миграциями, переименовывать нечего
+public class V8__Normalize_review_foreign_keys extends BaseJavaMigration {
+
+    private static final Map<String, String> EXPECTED = Map.of(
+            "visitors", "fk_reviews_visitor",
+            "restaurants", "fk_reviews_restaurant");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Map<String, String> renames = new LinkedHashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet keys = metaData.getImportedKeys(connection.getCatalog(), connection.getSchema(), "reviews")) {
+            while (keys.next()) {
+                String name = keys.getString("FK_NAME");
+                String expected = EXPECTED.get(keys.getString("PKTABLE_NAME").toLowerCase(Locale.ROOT));
+                if (name != null && expected != null && !expected.equalsIgnoreCase(name)) {
+                    renames.put(name, expected);
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> rename : renames.entrySet()) {
+                statement.execute("ALTER TABLE reviews RENAME CONSTRAINT \"" + rename.getKey() + "\" TO "
+                        + rename.getValue());
+            }
+        }
+    }
+}
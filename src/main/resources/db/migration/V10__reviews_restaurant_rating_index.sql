@@ -0,0 +1,2 @@
+-- Seek-пагинация отзывов ресторана по (rating, visitor_id) и гистограмма оценок читаются из этого индекса
+CREATE INDEX IF NOT EXISTS idx_reviews_restaurant_rating_visitor ON reviews (restaurant_id, rating, visitor_id);
@@ -0,0 +1,9 @@
+-- Заполнение агрегатов рейтинга по уже существующим отзывам. Без этого ресторан с историей отзывов
+-- получил бы review_count = rating_sum = 0, первая дельта пересчитала бы rating по одному новому отзыву,
+-- а удаление увело бы счетчик в минус. Тот же запрос, что и RestaurantRepository.rebuildAllRatingAggregates;
+-- выполняется до старта приложения, то есть до первой дельты
+UPDATE restaurants r SET (review_count, rating_sum, rating) = (
+    SELECT COUNT(*), COALESCE(SUM(rv.rating), 0), COALESCE(ROUND(AVG(rv.rating * 1.0), 2), 0)
+    FROM reviews rv WHERE rv.restaurant_id = r.id),
+    version = r.version + 1,
+    updated_at = CURRENT_TIMESTAMP;
@@ -0,0 +1,30 @@
+-- Исходная схема: то, что раньше создавал ddl-auto=update по сущностям
+
+CREATE TABLE restaurants (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name          VARCHAR(200)   NOT NULL,
+    description   VARCHAR(1000)  NOT NULL,
+    cuisine_type  VARCHAR(20)    NOT NULL,
+    average_bill  NUMERIC(10, 2) NOT NULL,
+    rating        NUMERIC(3, 2),
+    CONSTRAINT pk_restaurants PRIMARY KEY (id)
+);
+
+CREATE TABLE visitors (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name    VARCHAR(100) NOT NULL,
+    age     INTEGER      NOT NULL,
+    gender  VARCHAR(10)  NOT NULL,
+    CONSTRAINT pk_visitors PRIMARY KEY (id)
+);
+
+-- Первичный ключ (visitor_id, restaurant_id) обслуживает и выборки по посетителю
+CREATE TABLE reviews (
+    visitor_id     BIGINT        NOT NULL,
+    restaurant_id  BIGINT        NOT NULL,
+    rating         INTEGER       NOT NULL,
+    review_text    VARCHAR(1000),
+    CONSTRAINT pk_reviews PRIMARY KEY (visitor_id, restaurant_id),
+    CONSTRAINT fk_reviews_visitor FOREIGN KEY (visitor_id) REFERENCES visitors (id),
+    CONSTRAINT fk_reviews_restaurant FOREIGN KEY (restaurant_id) REFERENCES restaurants (id)
+);
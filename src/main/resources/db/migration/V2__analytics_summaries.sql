@@ -0,0 +1,40 @@
+-- Время создания отзыва для аналитики по дням; у существующих строк - момент миграции
+ALTER TABLE reviews ADD COLUMN created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX idx_reviews_created_at ON reviews (created_at);
+
+-- Сводки для дашбордов. Пересобираются по расписанию в одной транзакции:
+-- читатели видят прежнее содержимое до коммита и не ждут агрегаций по OLTP-таблицам
+
+CREATE TABLE analytics_cuisine_stats (
+    cuisine_type      VARCHAR(20)    NOT NULL,
+    restaurant_count  BIGINT         NOT NULL,
+    review_count      BIGINT         NOT NULL,
+    rating_sum        BIGINT         NOT NULL,
+    total_bill        NUMERIC(19, 2) NOT NULL,
+    CONSTRAINT pk_analytics_cuisine_stats PRIMARY KEY (cuisine_type)
+);
+
+CREATE TABLE analytics_daily_reviews (
+    review_date   DATE   NOT NULL,
+    review_count  BIGINT NOT NULL,
+    rating_sum    BIGINT NOT NULL,
+    CONSTRAINT pk_analytics_daily_reviews PRIMARY KEY (review_date)
+);
+
+CREATE TABLE analytics_top_visitors (
+    visitor_id    BIGINT       NOT NULL,
+    visitor_name  VARCHAR(100) NOT NULL,
+    review_count  BIGINT       NOT NULL,
+    rating_sum    BIGINT       NOT NULL,
+    CONSTRAINT pk_analytics_top_visitors PRIMARY KEY (visitor_id)
+);
+
+-- Одна строка: время и длительность последней пересборки; блокируется на время пересборки,
+-- чтобы экземпляры приложения не пересобирали сводки одновременно
+CREATE TABLE analytics_refresh (
+    id            INTEGER NOT NULL,
+    refreshed_at  TIMESTAMP WITH TIME ZONE,
+    duration_ms   BIGINT,
+    CONSTRAINT pk_analytics_refresh PRIMARY KEY (id)
+);
+INSERT INTO analytics_refresh (id) VALUES (1);
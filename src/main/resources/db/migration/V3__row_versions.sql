@@ -0,0 +1,12 @@
+-- Версия и время изменения строк: основа для ETag и условных GET
+ALTER TABLE restaurants ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE restaurants ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE visitors ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE visitors ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE reviews ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE reviews ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- COUNT и MAX(updated_at) по отзывам ресторана для ETag страниц читаются только из индекса
+CREATE INDEX idx_reviews_restaurant_updated ON reviews (restaurant_id, updated_at);
@@ -0,0 +1,4 @@
+-- История отзывов посетителя, новые первыми: seek по (created_at, restaurant_id) внутри visitor_id
+-- читает диапазон индекса в нужном порядке, без сортировки. Первичный ключ (visitor_id, restaurant_id)
+-- для этого не годится - он упорядочен по ресторану
+CREATE INDEX idx_reviews_visitor_created ON reviews (visitor_id, created_at DESC, restaurant_id DESC);
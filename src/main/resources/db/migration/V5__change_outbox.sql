@@ -0,0 +1,24 @@
+-- Журнал изменений (transactional outbox): строка пишется в той же транзакции, что и само изменение.
+-- position - смещение для потребителей (/api/changes?since=). Его назначает релей после коммита записи,
+-- поэтому смещения идут в порядке видимости изменений и потребитель, читающий по возрастанию, ничего не пропускает;
+-- id из последовательности такого порядка не дает - транзакции коммитятся не в порядке вставки
+CREATE TABLE change_outbox (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    position     BIGINT,
+    entity_type  VARCHAR(20)   NOT NULL,
+    entity_id    VARCHAR(64)   NOT NULL,
+    change_type  VARCHAR(20)   NOT NULL,
+    payload      VARCHAR(4000),
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_change_outbox PRIMARY KEY (id),
+    CONSTRAINT uq_change_outbox_position UNIQUE (position)
+);
+
+-- Последнее назначенное смещение; строка блокируется FOR UPDATE, так что экземпляры назначают смещения по очереди
+CREATE TABLE change_outbox_relay (
+    id             INTEGER NOT NULL,
+    last_position  BIGINT  NOT NULL,
+    CONSTRAINT pk_change_outbox_relay PRIMARY KEY (id)
+);
+
+INSERT INTO change_outbox_relay (id, last_position) VALUES (1, 0);
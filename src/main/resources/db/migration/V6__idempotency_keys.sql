@@ -0,0 +1,16 @@
+-- Ответы на POST с заголовком Idempotency-Key: повтор запроса с тем же ключом получает сохраненный ответ,
+-- а метод сервиса не выполняется второй раз. Строка без status - запрос с этим ключом еще выполняется
+CREATE TABLE idempotency_keys (
+    scope_key     VARCHAR(400)  NOT NULL,
+    request_hash  VARCHAR(64)   NOT NULL,
+    status        INTEGER,
+    content_type  VARCHAR(100),
+    location      VARCHAR(400),
+    body          BYTEA,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (scope_key)
+);
+
+-- Очистка просроченных ключей
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,4 @@
+-- Владелец незавершенного ключа: случайный токен запроса, занявшего ключ. Сохранение ответа и
+-- освобождение ключа проверяют токен, поэтому запрос, у которого ключ забрали по таймауту,
+-- не перезапишет чужой ответ и не удалит чужую запись
+ALTER TABLE idempotency_keys ADD COLUMN claim_token VARCHAR(36);
@@ -0,0 +1,4 @@
+-- Агрегаты для инкрементального пересчета рейтинга. Базы, принятые через baseline-on-migrate,
+-- получили схему без этих колонок, поэтому они добавляются отдельной миграцией, а не в V1
+ALTER TABLE restaurants ADD COLUMN IF NOT EXISTS review_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE restaurants ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,91 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Пакетные чтения по списку id: порядок как в запросе, несуществующие id пропускаются, больше 1000 - 400
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchLookupTest {
+
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Test
+    void restaurantsKeepRequestOrderAndSkipMissingIds() throws Exception {
+        int first = restaurant("Batch First").intValue();
+        int second = restaurant("Batch Second").intValue();
+        int third = restaurant("Batch Third").intValue();
+
+        mockMvc.perform(get("/api/restaurants")
+                        .param("ids", third + "," + MISSING_ID + "," + first + "," + third + "," + second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].id", contains(third, first, second)));
+    }
+
+    @Test
+    void visitorsKeepRequestOrderAndSkipMissingIds() throws Exception {
+        int first = visitor("Batch Anna").intValue();
+        int second = visitor("Batch Ivan").intValue();
+
+        mockMvc.perform(post("/api/visitors/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + second + ", " + MISSING_ID + ", " + first + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(second, first)));
+    }
+
+    @Test
+    void moreThanThousandIdsIsBadRequest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 1001)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/restaurants").param("ids", ids))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/visitors/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ids + "]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long restaurant(String name) {
+        return restaurantService.save(new RestaurantRequestDTO(
+                name, "Batch", CuisineType.CHINESE, new BigDecimal("700.00"))).id();
+    }
+
+    private Long visitor(String name) {
+        return visitorService.save(new VisitorRequestDTO(name, 28, "Other")).id();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.outbox.ChangeOutbox;
+import com.example.outbox.OutboxRelay;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Записи попадают в журнал в транзакции изменения, а после релея читаются по смещению в порядке коммитов
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void writesAreReadableAfterOffset() throws Exception {
+        outboxRelay.relay();
+        long since = changeOutbox.lastPosition();
+
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Outbox Bistro", "Change feed", CuisineType.FRENCH, new BigDecimal("1500.00"))).id();
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Subscriber", 28, "Other")).id();
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, 5, "feed"));
+        outboxRelay.relay();
+
+        mockMvc.perform(get("/api/changes").param("since", String.valueOf(since)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].entityType").value(contains("RESTAURANT", "VISITOR", "REVIEW", "RESTAURANT")))
+                .andExpect(jsonPath("$.content[*].changeType").value(contains("CREATED", "CREATED", "CREATED", "RATING_CHANGED")))
+                .andExpect(jsonPath("$.content[2].entityId").value(visitorId + ":" + restaurantId))
+                .andExpect(jsonPath("$.content[2].payload.rating").value(5))
+                .andExpect(jsonPath("$.content[0].offset").value(since + 1));
+    }
+
+    // Подписка с Last-Event-ID получает сначала историю из таблицы, затем события, разосланные релеем
+    @Test
+    void streamDeliversHistoryThenLiveEvents() throws Exception {
+        outboxRelay.relay();
+        long since = changeOutbox.lastPosition();
+        restaurantService.save(new RestaurantRequestDTO(
+                "Stream History", "Change feed", CuisineType.FRENCH, new BigDecimal("1100.00")));
+        outboxRelay.relay();
+
+        MvcResult result = mockMvc.perform(get("/api/changes")
+                        .header("Last-Event-ID", String.valueOf(since))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String history = awaitContent(result, "Stream History");
+        assertThat(history).contains("id:" + (since + 1) + "\n", "event:change\n");
+
+        restaurantService.save(new RestaurantRequestDTO(
+                "Stream Live", "Change feed", CuisineType.FRENCH, new BigDecimal("1200.00")));
+        outboxRelay.relay();
+
+        String content = awaitContent(result, "Stream Live");
+        assertThat(content.indexOf("Stream History")).isLessThan(content.indexOf("Stream Live"));
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+}
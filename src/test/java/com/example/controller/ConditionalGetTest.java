@@ -0,0 +1,90 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Условные GET: совпавший If-None-Match дает 304 без тела, изменение данных меняет ETag
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void singleEntityIsNotModifiedForMatchingEtag() throws Exception {
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Etag Grill", "Conditional", CuisineType.AMERICAN, new BigDecimal("800.00"))).id();
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Etag Visitor", 33, "Man")).id();
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, 4, "etag"));
+
+        String restaurantUrl = "/api/restaurants/" + restaurantId;
+        String restaurantEtag = etag(restaurantUrl);
+        mockMvc.perform(get(restaurantUrl).header(HttpHeaders.IF_NONE_MATCH, restaurantEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        String reviewUrl = "/api/reviews/visitor/" + visitorId + "/restaurant/" + restaurantId;
+        String reviewEtag = etag(reviewUrl);
+        mockMvc.perform(get(reviewUrl).header(HttpHeaders.IF_NONE_MATCH, reviewEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void reviewPageEtagChangesAfterReviewUpdate() throws Exception {
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Etag Pages", "Conditional", CuisineType.ITALIAN, new BigDecimal("900.00"))).id();
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Page Visitor", 35, "Woman")).id();
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, 3, "before"));
+
+        String pageUrl = "/api/reviews/restaurant/" + restaurantId + "/page?size=5";
+        String before = etag(pageUrl);
+        mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isNotModified());
+
+        reviewService.update(visitorId, restaurantId, new ReviewRequestDTO(visitorId, restaurantId, 5, "after"));
+
+        mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        assertThat(etag(pageUrl)).isNotEqualTo(before);
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
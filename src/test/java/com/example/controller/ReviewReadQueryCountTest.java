@@ -0,0 +1,92 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.metrics.SqlStatementCounter;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Чтения отзывов не должны порождать N+1: число SQL-операторов на запрос не зависит от размера выдачи.
+// Условные GET добавляют один запрос версии (отпечатка) перед телом
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReviewReadQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    private Long restaurantId;
+    private Long visitorId;
+
+    @BeforeEach
+    void seed() {
+        restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Query Count Grill", "N+1 check", CuisineType.ITALIAN, new BigDecimal("1500.00"))).id();
+        for (int i = 0; i < 3; i++) {
+            visitorId = visitorService.save(new VisitorRequestDTO("Reader " + i, 25, "Other")).id();
+            reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, i + 3, "Review " + i));
+        }
+    }
+
+    @Test
+    void listingAllReviewsIsSingleQuery() throws Exception {
+        assertStatements("/api/reviews", 1);
+    }
+
+    @Test
+    void singleReviewIsVersionPlusBody() throws Exception {
+        assertStatements("/api/reviews/visitor/" + visitorId + "/restaurant/" + restaurantId, 2);
+    }
+
+    @Test
+    void cursorPagesAreSingleQuery() throws Exception {
+        assertStatements("/api/reviews/keyset?limit=2", 1);
+        assertStatements("/api/reviews/restaurant/" + restaurantId + "/scroll?size=2", 2);
+    }
+
+    @Test
+    void offsetPagesAreFingerprintContentAndCount() throws Exception {
+        assertStatements("/api/reviews/restaurant/" + restaurantId + "/page?size=2", 3);
+        assertStatements("/api/reviews/restaurant/" + restaurantId + "/sorted?size=2", 3);
+    }
+
+    @Test
+    void expandAddsOneQueryPerType() throws Exception {
+        assertStatements("/api/reviews/keyset?limit=3&expand=visitor", 2);
+        assertStatements("/api/reviews/restaurant/" + restaurantId + "/page?size=3&expand=restaurant,visitor", 4);
+    }
+
+    private void assertStatements(String url, long expected) throws Exception {
+        long before = SqlStatementCounter.current();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertThat(SqlStatementCounter.current() - before)
+                .as("SQL-операторов на GET %s", url)
+                .isEqualTo(expected);
+    }
+}
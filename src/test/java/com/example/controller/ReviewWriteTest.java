@@ -0,0 +1,115 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.metrics.SqlStatementCounter;
+import com.example.service.RestaurantService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Запись отзыва одним INSERT ... ON CONFLICT: ссылки и дубли проверяет БД, ошибки отдаются как 404/409
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReviewWriteTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long restaurantId;
+    private Long visitorId;
+
+    @BeforeEach
+    void seed() {
+        restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Upsert Diner", "Write path check", CuisineType.AMERICAN, new BigDecimal("800.00"))).id();
+        visitorId = visitorService.save(new VisitorRequestDTO("Writer", 35, "Other")).id();
+    }
+
+    // Транзакция записи - четыре оператора: INSERT отзыва и UPDATE агрегатов через Hibernate и две записи
+    // журнала изменений (отзыв и рейтинг ресторана) через JdbcTemplate, их счетчик Hibernate не видит,
+    // они проверяются по таблице. Индексы в памяти дочитывают ресторан в своем потоке
+    @Test
+    void createIsInsertRatingDeltaAndOutboxRows() throws Exception {
+        long outboxBefore = outboxRows();
+        long before = SqlStatementCounter.current();
+        mockMvc.perform(postReview(visitorId, restaurantId, 4)).andExpect(status().isCreated());
+        assertThat(SqlStatementCounter.current() - before).isEqualTo(2);
+        assertThat(outboxRows() - outboxBefore).isEqualTo(2);
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/reviews/keyset").param("after", "1:x"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Курсор должен иметь вид visitorId:restaurantId"));
+    }
+
+    @Test
+    void duplicateIsConflict() throws Exception {
+        mockMvc.perform(postReview(visitorId, restaurantId, 4)).andExpect(status().isCreated());
+        mockMvc.perform(postReview(visitorId, restaurantId, 5))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Посетитель уже оставил отзыв"));
+    }
+
+    @Test
+    void missingReferencesAreNotFound() throws Exception {
+        mockMvc.perform(postReview(Long.MAX_VALUE, restaurantId, 4)).andExpect(status().isNotFound());
+        mockMvc.perform(postReview(visitorId, Long.MAX_VALUE, 4)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void putUpsertCreatesThenUpdates() throws Exception {
+        String url = "/api/reviews/visitor/" + visitorId + "/restaurant/" + restaurantId;
+        mockMvc.perform(json(put(url), visitorId, restaurantId, 3)).andExpect(status().isNotFound());
+        mockMvc.perform(json(put(url + "?upsert=true"), visitorId, restaurantId, 3)).andExpect(status().isCreated());
+        mockMvc.perform(json(put(url + "?upsert=true"), visitorId, restaurantId, 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating").value(5));
+    }
+
+    private long outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_outbox", Long.class);
+    }
+
+    private static MockHttpServletRequestBuilder postReview(Long visitorId, Long restaurantId, int rating) {
+        return json(post("/api/reviews"), visitorId, restaurantId, rating);
+    }
+
+    private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request,
+                                                      Long visitorId, Long restaurantId, int rating) {
+        return request.contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"visitorId": %d, "restaurantId": %d, "rating": %d, "reviewText": "upsert"}
+                        """.formatted(visitorId, restaurantId, rating));
+    }
+}
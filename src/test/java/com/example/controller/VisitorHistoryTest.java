@@ -0,0 +1,87 @@
+package com.example.controller;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// История отзывов посетителя: новые первыми, с названиями ресторанов, порциями по курсору
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VisitorHistoryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void historyIsPagedNewestFirst() throws Exception {
+        Long visitorId = visitorService.save(new VisitorRequestDTO("History Visitor", 41, "Woman")).id();
+        int first = review(visitorId, "History One", 3);
+        int second = review(visitorId, "History Two", 4);
+        int third = review(visitorId, "History Three", 5);
+
+        String body = mockMvc.perform(get("/api/visitors/" + visitorId + "/reviews").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].restaurantId", contains(third, second)))
+                .andExpect(jsonPath("$.content[*].restaurantName", contains("History Three", "History Two")))
+                .andExpect(jsonPath("$.content[0].createdAt", notNullValue()))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/api/visitors/" + visitorId + "/reviews").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].restaurantId", contains(first)))
+                .andExpect(jsonPath("$.content[0].rating").value(3))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void unknownVisitorIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/visitors/" + Long.MAX_VALUE + "/reviews"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Cursor Visitor", 22, "Man")).id();
+        mockMvc.perform(get("/api/visitors/" + visitorId + "/reviews").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private int review(Long visitorId, String restaurantName, int rating) {
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                restaurantName, "History", CuisineType.JAPANESE, new BigDecimal("1200.00"))).id();
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, rating, "history"));
+        return restaurantId.intValue();
+    }
+}
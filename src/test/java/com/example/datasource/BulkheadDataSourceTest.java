@@ -0,0 +1,25 @@
+package com.example.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// Обертка заменяет бин пула, поэтому закрытие контекста должно дойти до самого пула
+class BulkheadDataSourceTest {
+
+    @Test
+    void closeClosesTargetPool() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "test", 1, Duration.ofSeconds(1),
+                new SimpleMeterRegistry(), new ConnectionWaitTracker());
+
+        bulkhead.close();
+
+        verify(pool).close();
+    }
+}
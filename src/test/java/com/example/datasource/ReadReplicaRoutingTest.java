@@ -0,0 +1,155 @@
+package com.example.datasource;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Две базы H2 изображают основную и реплику. "Репликация" - снимок основной через SCRIPT,
+// после которого основная меняется, и по имени ресторана видно, откуда пришло чтение.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.password=",
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.lag-check-interval-ms=60000",
+        "app.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+        "app.cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Long restaurantId;
+
+    @BeforeEach
+    void replicateThenDiverge() throws SQLException {
+        restaurantId = restaurantService.save(restaurant("Replicated Name")).id();
+        replicate(0);
+        restaurantService.update(restaurantId, restaurant("Primary Name"));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertThat(nameFromFindAll()).isEqualTo("Replicated Name");
+    }
+
+    @Test
+    void pinnedThreadReadsPrimary() {
+        List<String> names = new ArrayList<>();
+        PrimaryPin.onPrimary(() -> names.add(nameFromFindAll()));
+        assertThat(names).containsExactly("Primary Name");
+    }
+
+    @Test
+    void laggingReplicaIsBypassed() throws SQLException {
+        setReplicaLag(60);
+        assertThat(nameFromFindAll()).isEqualTo("Primary Name");
+
+        setReplicaLag(1);
+        assertThat(nameFromFindAll()).isEqualTo("Replicated Name");
+    }
+
+    @Test
+    void writerIsPinnedToPrimaryByCookie() throws Exception {
+        MvcResult write = mockMvc.perform(put("/api/restaurants/" + restaurantId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name":"Written Name","description":"Routing","cuisineType":"ITALIAN","averageBill":900.00}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(PrimaryPinFilter.COOKIE))
+                .andReturn();
+        Cookie pin = write.getResponse().getCookie(PrimaryPinFilter.COOKIE);
+
+        mockMvc.perform(get("/api/restaurants").cookie(pin))
+                .andExpect(content().string(containsString("Written Name")));
+        mockMvc.perform(get("/api/restaurants"))
+                .andExpect(content().string(not(containsString("Written Name"))));
+    }
+
+    private String nameFromFindAll() {
+        return restaurantService.findAll().stream()
+                .filter(restaurant -> restaurant.id().equals(restaurantId))
+                .map(RestaurantResponseDTO::name)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static RestaurantRequestDTO restaurant(String name) {
+        return new RestaurantRequestDTO(name, "Routing", CuisineType.ITALIAN, new BigDecimal("900.00"));
+    }
+
+    // Переносит текущее состояние основной БД на реплику целиком
+    private void replicate(int lagSeconds) throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rows = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                if (!sql.startsWith("CREATE USER")) {
+                    statement.execute(sql);
+                }
+            }
+            statement.execute("CREATE TABLE replica_lag(seconds INT)");
+            statement.execute("INSERT INTO replica_lag VALUES (" + lagSeconds + ")");
+        }
+        lagMonitor.check();
+    }
+
+    private void setReplicaLag(int seconds) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("UPDATE replica_lag SET seconds = " + seconds);
+        }
+        lagMonitor.check();
+    }
+}
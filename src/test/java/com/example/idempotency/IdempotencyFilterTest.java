@@ -0,0 +1,278 @@
+package com.example.idempotency;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import com.example.repository.VisitorRepository;
+import com.example.service.RestaurantService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Повтор POST с тем же Idempotency-Key отдает сохраненный ответ и не создает вторую сущность
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @MockitoSpyBean
+    private VisitorService visitorService;
+
+    @Test
+    void retryReplaysStoredResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        long before = restaurantRepository.count();
+
+        MvcResult first = mockMvc.perform(createRestaurant(key, "Retry Cafe"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn();
+        MvcResult retry = mockMvc.perform(createRestaurant(key, "Retry Cafe"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+
+        assertThat(retry.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+        assertThat(restaurantRepository.count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(createRestaurant(key, "First Body")).andExpect(status().isCreated());
+        mockMvc.perform(createRestaurant(key, "Second Body")).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void reviewAndVisitorCreationAreReplayed() throws Exception {
+        String visitorKey = UUID.randomUUID().toString();
+        String visitorBody = """
+                {"name": "Idempotent Visitor", "age": 30, "gender": "Other"}
+                """;
+        long visitorsBefore = visitorRepository.count();
+        mockMvc.perform(post("/api/visitors").header(IdempotencyFilter.HEADER, visitorKey)
+                        .contentType(MediaType.APPLICATION_JSON).content(visitorBody))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/visitors").header(IdempotencyFilter.HEADER, visitorKey)
+                        .contentType(MediaType.APPLICATION_JSON).content(visitorBody))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertThat(visitorRepository.count()).isEqualTo(visitorsBefore + 1);
+
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Reviewer", 40, "Woman")).id();
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Review Replay", "Idempotent", CuisineType.FRENCH, new BigDecimal("1500.00"))).id();
+        String reviewKey = UUID.randomUUID().toString();
+        String reviewBody = """
+                {"visitorId": %d, "restaurantId": %d, "rating": 4, "reviewText": "Once"}
+                """.formatted(visitorId, restaurantId);
+        long reviewsBefore = reviewRepository.count();
+        mockMvc.perform(post("/api/reviews").header(IdempotencyFilter.HEADER, reviewKey)
+                        .contentType(MediaType.APPLICATION_JSON).content(reviewBody))
+                .andExpect(status().isCreated());
+        // Без ключа идемпотентности повтор получил бы 409 на дубль отзыва
+        mockMvc.perform(post("/api/reviews").header(IdempotencyFilter.HEADER, reviewKey)
+                        .contentType(MediaType.APPLICATION_JSON).content(reviewBody))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertThat(reviewRepository.count()).isEqualTo(reviewsBefore + 1);
+    }
+
+    @Test
+    void requestInProgressGetsConflictWithRetryAfter() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = restaurantBody("In Progress");
+        assertThat(store.claim(IdempotencyFilter.scopeKey("ip:127.0.0.1", "/api/restaurants", key), sha256(body),
+                UUID.randomUUID().toString())).isNull();
+
+        mockMvc.perform(post("/api/restaurants").header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void failedRequestReleasesKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = """
+                {"name": "Flaky Visitor", "age": 25, "gender": "Man"}
+                """;
+        doThrow(new RuntimeException("сбой")).doCallRealMethod().when(visitorService).save(any());
+
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/visitors").header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON).content(body)));
+        mockMvc.perform(post("/api/visitors").header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void concurrentRetriesExecuteOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        long before = restaurantRepository.count();
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> results = new ArrayList<>(requests);
+        try (ExecutorService executor = Executors.newFixedThreadPool(requests)) {
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(createRestaurant(key, "Concurrent Cafe")).andReturn();
+                }));
+            }
+            start.countDown();
+            int executed = 0;
+            for (Future<MvcResult> result : results) {
+                MvcResult mvcResult = result.get(30, TimeUnit.SECONDS);
+                int status = mvcResult.getResponse().getStatus();
+                assertThat(status).isIn(201, 409);
+                if (status == 201 && mvcResult.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER) == null) {
+                    executed++;
+                }
+            }
+            assertThat(executed).isEqualTo(1);
+        }
+        assertThat(restaurantRepository.count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void keyIsScopedToClient() throws Exception {
+        String key = UUID.randomUUID().toString();
+        long before = restaurantRepository.count();
+        mockMvc.perform(createRestaurant(key, "Shared Key")).andExpect(status().isCreated());
+        mockMvc.perform(createRestaurant(key, "Shared Key").with(request -> {
+                    request.setRemoteAddr("10.0.0.2");
+                    return request;
+                }))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertThat(restaurantRepository.count()).isEqualTo(before + 2);
+    }
+
+    @Test
+    void scopeKeyIsStoredAsFixedLengthHash() throws Exception {
+        String key = "k".repeat(255);
+        mockMvc.perform(createRestaurant(key, "Long Key")).andExpect(status().isCreated());
+
+        String scopeKey = IdempotencyFilter.scopeKey("ip:127.0.0.1", "/api/restaurants", key);
+        assertThat(scopeKey).hasSize(64).doesNotContain(key);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE scope_key = ?",
+                Integer.class, scopeKey)).isOne();
+    }
+
+    @Test
+    void oversizedBodyIsRejected() throws Exception {
+        String body = """
+                {"name": "Huge", "description": "%s", "cuisineType": "ITALIAN", "averageBill": 900.00}
+                """.formatted("x".repeat(70 * 1024));
+        mockMvc.perform(post("/api/restaurants").header(IdempotencyFilter.HEADER, UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void expiredKeyIsReclaimedAndPurged() {
+        String scopeKey = "test " + UUID.randomUUID();
+        assertThat(store.claim(scopeKey, "hash", "first")).isNull();
+        expire(scopeKey);
+        assertThat(store.claim(scopeKey, "hash", "second")).isNull();
+
+        expire(scopeKey);
+        assertThat(store.purge()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE scope_key = ?",
+                Integer.class, scopeKey)).isZero();
+    }
+
+    @Test
+    void onlyClaimOwnerCompletesOrReleases() {
+        String scopeKey = "test " + UUID.randomUUID();
+        assertThat(store.claim(scopeKey, "hash", "owner")).isNull();
+
+        assertThat(store.complete(scopeKey, "stranger", "hash", 201, null, null, null)).isFalse();
+        store.release(scopeKey, "stranger");
+        assertThat(store.claim(scopeKey, "hash", "other").inProgress()).isTrue();
+
+        assertThat(store.complete(scopeKey, "owner", "hash", 201, null, null, new byte[0])).isTrue();
+        assertThat(store.claim(scopeKey, "hash", "other").status()).isEqualTo(201);
+    }
+
+    private void expire(String scopeKey) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = ? WHERE scope_key = ?",
+                Timestamp.from(Instant.now().minusSeconds(60)), scopeKey);
+    }
+
+    private static MockHttpServletRequestBuilder createRestaurant(String key, String name) {
+        return post("/api/restaurants")
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(restaurantBody(name));
+    }
+
+    private static String restaurantBody(String name) {
+        return """
+                {"name": "%s", "description": "Idempotent", "cuisineType": "ITALIAN", "averageBill": 900.00}
+                """.formatted(name);
+    }
+
+    private static String sha256(String body) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
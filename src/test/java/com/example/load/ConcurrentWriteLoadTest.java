@@ -0,0 +1,105 @@
+package com.example.load;
+
+import com.example.RestaurantRatingApplication;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.repository.ReviewRepository;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Писателей на порядок больше, чем разрешений очереди перед пулом, и каждый внутри своей транзакции
+// открывает вложенную REQUIRES_NEW. Если вложенное соединение встает в очередь за разрешением,
+// которое держит сам поток, или пулу не хватает соединений на вложенные транзакции,
+// писатели упираются в acquire-timeout и тест видит ошибки. Запуск: ./gradlew loadTest
+@Tag("load")
+class ConcurrentWriteLoadTest {
+
+    private static final int WRITERS = 64;
+
+    @Test
+    void nestedWritesDoNotExhaustBulkhead() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RestaurantRatingApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.threads.virtual.enabled=true",
+                        "spring.datasource.url=jdbc:h2:mem:load_writes;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=4",
+                        "spring.datasource.hikari.connection-timeout=3000",
+                        "app.datasource.bulkhead.acquire-timeout=5s",
+                        "app.cache.enabled=false",
+                        "logging.level.com.example=INFO")
+                .run()) {
+            RestaurantService restaurantService = context.getBean(RestaurantService.class);
+            VisitorService visitorService = context.getBean(VisitorService.class);
+            ReviewService reviewService = context.getBean(ReviewService.class);
+            ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+            PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+            TransactionTemplate outer = new TransactionTemplate(transactionManager);
+            TransactionTemplate nested = new TransactionTemplate(transactionManager);
+            nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+            Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                    "Write Load", "Load test", CuisineType.ITALIAN, new BigDecimal("900.00"))).id();
+            List<Long> visitorIds = new ArrayList<>(WRITERS);
+            for (int i = 0; i < WRITERS; i++) {
+                visitorIds.add(visitorService.save(new VisitorRequestDTO("Writer " + i, 30, "Other")).id());
+            }
+
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            long started = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> writers = new ArrayList<>(WRITERS);
+                for (int i = 0; i < WRITERS; i++) {
+                    Long visitorId = visitorIds.get(i);
+                    int rating = i % 5 + 1;
+                    writers.add(executor.submit(() -> {
+                        try {
+                            start.await();
+                            outer.executeWithoutResult(status -> {
+                                reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, rating, "Load"));
+                                nested.executeWithoutResult(inner -> visitorService.save(
+                                        new VisitorRequestDTO("Nested " + visitorId, 31, "Other")));
+                            });
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }));
+                }
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get(2, TimeUnit.MINUTES);
+                }
+            }
+            System.out.printf("%d writers, %.0f ms, errors %d%n",
+                    WRITERS, (System.nanoTime() - started) / 1_000_000.0, errors.get());
+
+            assertThat(errors.get()).isZero();
+            assertThat(reviewRepository.count()).isEqualTo(WRITERS);
+        }
+    }
+}
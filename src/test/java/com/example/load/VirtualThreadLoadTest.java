@@ -0,0 +1,141 @@
+package com.example.load;
+
+import com.example.RestaurantRatingApplication;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнение режимов обработки запросов: платформенные потоки Tomcat против виртуальных.
+// Запускается отдельно: ./gradlew loadTest. Пул соединений маленький, а таймаут Hikari
+// короткий, чтобы было видно, что очередь перед пулом не дает запросам отваливаться.
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int REVIEWS = 200;
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 2_000;
+
+    @Test
+    void compareRequestModes() throws Exception {
+        LoadResult platform = run(false);
+        LoadResult virtual = run(true);
+
+        System.out.printf("%-10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "errors");
+        for (LoadResult result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %10.0f %10.1f %10.1f %8d%n",
+                    result.mode(), result.throughput(), result.p50Millis(), result.p99Millis(), result.errors());
+        }
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(RestaurantRatingApplication.class)
+                        .profiles("test")
+                        .properties(
+                                "server.port=0",
+                                "spring.threads.virtual.enabled=" + virtualThreads,
+                                "spring.datasource.url=jdbc:h2:mem:load_" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                                "spring.datasource.hikari.maximum-pool-size=10",
+                                "spring.datasource.hikari.connection-timeout=2000",
+                                "app.cache.enabled=false",
+                                "app.rate-limit.enabled=false",
+                                "logging.level.com.example=INFO")
+                        .run()) {
+            Long restaurantId = seed(context);
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort()
+                    + "/api/reviews/restaurant/" + restaurantId + "/page?size=20");
+            return fire(mode, uri);
+        }
+    }
+
+    private Long seed(ServletWebServerApplicationContext context) {
+        RestaurantService restaurantService = context.getBean(RestaurantService.class);
+        VisitorService visitorService = context.getBean(VisitorService.class);
+        ReviewService reviewService = context.getBean(ReviewService.class);
+
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Load Diner", "Load test", CuisineType.AMERICAN, new BigDecimal("1000.00"))).id();
+        for (int i = 0; i < REVIEWS; i++) {
+            Long visitorId = visitorService.save(new VisitorRequestDTO("Load " + i, 30, "Other")).id();
+            reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, i % 5 + 1, "Review " + i));
+        }
+        return restaurantId;
+    }
+
+    private LoadResult fire(String mode, URI uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(REQUESTS));
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+
+        long start = System.nanoTime();
+        try (HttpClient client = HttpClient.newHttpClient();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> calls = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                inFlight.acquire();
+                calls.add(executor.submit(() -> {
+                    long callStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies.add(System.nanoTime() - callStart);
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted = latencies.stream().sorted().toList();
+        return new LoadResult(mode,
+                REQUESTS / (elapsed / 1_000_000_000.0),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                errors.get());
+    }
+
+    private static double percentile(List<Long> sortedNanos, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private record LoadResult(String mode, double throughput, double p50Millis, double p99Millis, int errors) {}
+}
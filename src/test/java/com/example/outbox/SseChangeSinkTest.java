@@ -0,0 +1,60 @@
+package com.example.outbox;
+
+import com.example.config.OutboxProperties;
+import com.example.dto.ChangeEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Релей не ждет медленного подписчика: пока задача подписчика занята, события копятся
+// в его очереди, а при переполнении подписчик отключается
+class SseChangeSinkTest {
+
+    @Test
+    void laggingSubscriberIsDisconnectedWithoutBlockingPublish() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        ChangeOutbox changeOutbox = mock(ChangeOutbox.class);
+        when(changeOutbox.readAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            readStarted.countDown();
+            unblock.await();
+            return List.of();
+        });
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SseChangeSink sink = new SseChangeSink(changeOutbox, new OutboxProperties(
+                200, 500, Duration.ofDays(7), false, Path.of("changes.ndjson"), Duration.ofMinutes(30), 2),
+                meterRegistry);
+        try {
+            sink.subscribe(0);
+            // Задача подписчика застряла на дочитывании истории
+            assertThat(readStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            sink.publish(List.of(event(1), event(2)));
+            assertThat(meterRegistry.get("app.outbox.sse.subscribers").gauge().value()).isEqualTo(1);
+
+            sink.publish(List.of(event(3)));
+            assertThat(meterRegistry.get("app.outbox.sse.subscribers").gauge().value()).isZero();
+            assertThat(meterRegistry.get("app.outbox.sse.dropped").counter().count()).isEqualTo(1);
+        } finally {
+            unblock.countDown();
+            sink.shutdown();
+        }
+    }
+
+    private static ChangeEventDTO event(long offset) {
+        return new ChangeEventDTO(offset, "RESTAURANT", String.valueOf(offset), "UPDATED", null, Instant.now());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ratelimit;
+
+import com.example.datasource.ConnectionWaitTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Бюджет записей - 2 запроса подряд и 1 в минуту, чтобы третий гарантированно упирался в лимит
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.api-keys=partner-a,partner-b,partner-c",
+        "app.rate-limit.write-burst=2",
+        "app.rate-limit.writes-per-second=0.0167"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConnectionWaitTracker waitTracker;
+
+    @Test
+    void writesOverBudgetAreLimitedPerClient() throws Exception {
+        mockMvc.perform(createVisitor("partner-a")).andExpect(status().isCreated());
+        mockMvc.perform(createVisitor("partner-a")).andExpect(status().isCreated());
+        mockMvc.perform(createVisitor("partner-a"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Другой ключ и чтения того же клиента считаются отдельно
+        mockMvc.perform(createVisitor("partner-b")).andExpect(status().isCreated());
+        mockMvc.perform(get("/api/visitors/keyset").header("X-API-Key", "partner-a")).andExpect(status().isOk());
+    }
+
+    // Невыданные ключи не дают отдельного бюджета: все такие запросы считаются по адресу
+    @Test
+    void unknownKeysShareAddressBudget() throws Exception {
+        mockMvc.perform(createVisitor(UUID.randomUUID().toString())).andExpect(status().isCreated());
+        mockMvc.perform(createVisitor(UUID.randomUUID().toString())).andExpect(status().isCreated());
+        mockMvc.perform(createVisitor(UUID.randomUUID().toString())).andExpect(status().isTooManyRequests());
+    }
+
+    // Искусственное ожидание остается в трекере, следующим тестам нужен новый контекст
+    @Test
+    @DirtiesContext
+    void writesAreShedWhenPoolWaitIsHigh() throws Exception {
+        waitTracker.record(Duration.ofHours(1).toNanos());
+        mockMvc.perform(createVisitor("partner-c"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    private static MockHttpServletRequestBuilder createVisitor(String apiKey) {
+        return post("/api/visitors")
+                .header("X-API-Key", apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "Limited", "age": 30, "gender": "Other"}
+                        """);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.repository;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.service.RestaurantService;
+import com.example.service.ReviewService;
+import com.example.service.VisitorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов к отзывам по обоим путям доступа: по посетителю и по ресторану.
+// Запрос выполняется через ReviewRepository, его SQL в том виде, в каком его построил Hibernate,
+// берется из статистики запросов H2 и передается в EXPLAIN с теми же параметрами.
+// EXPLAIN выполняет H2, поэтому проверяется выбор индекса, а не конкретная стратегия PostgreSQL
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewIndexPlanTest {
+
+    // Позже любого реального отзыва, как курсор первой страницы истории
+    private static final Instant LATEST = Instant.parse("9999-12-31T23:59:59Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    private Long visitorId;
+    private Long restaurantId;
+
+    @BeforeEach
+    void seed() {
+        List<Long> restaurantIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            restaurantIds.add(restaurantService.save(new RestaurantRequestDTO(
+                    "Plan Bistro " + i, "EXPLAIN check", CuisineType.FRENCH, new BigDecimal("900.00"))).id());
+        }
+        for (int v = 0; v < 5; v++) {
+            visitorId = visitorService.save(new VisitorRequestDTO("Planner " + v, 30, "Other")).id();
+            for (int r = 0; r < 4; r++) {
+                restaurantId = restaurantIds.get(v * 4 + r);
+                reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, r + 1, "Plan review"));
+            }
+        }
+    }
+
+    @Test
+    void visitorHistorySeeksByVisitorCreatedIndex() {
+        resetStatistics();
+        reviewRepository.findHistoryByVisitorBefore(visitorId, LATEST, Long.MAX_VALUE, PageRequest.of(0, 21));
+
+        String plan = explainCaptured("join restaurants", 21, visitorId, Timestamp.from(LATEST), Long.MAX_VALUE);
+
+        assertThat(plan).containsIgnoringCase("idx_reviews_visitor_created");
+    }
+
+    @Test
+    void restaurantSeekUsesRatingIndex() {
+        resetStatistics();
+        reviewRepository.findByRestaurantAfterAsc(restaurantId, 0, 0L, PageRequest.of(0, 11));
+
+        String plan = explainCaptured(")>(", 11, restaurantId, 0, 0L);
+
+        assertThat(plan).containsIgnoringCase("idx_reviews_restaurant_rating_visitor");
+    }
+
+    @Test
+    void ratingHistogramIsCoveredByRatingIndex() {
+        resetStatistics();
+        // Два id: IN-список уже степень двойки и не добивается повторами
+        reviewRepository.countByRestaurantIdsAndRating(List.of(restaurantId, restaurantId - 1));
+
+        String plan = explainCaptured("group by", 0, restaurantId, restaurantId - 1);
+
+        assertThat(plan).containsIgnoringCase("idx_reviews_restaurant_rating_visitor");
+    }
+
+    // Статистика запросов H2 собирается на всю базу; выключение сбрасывает накопленное
+    private void resetStatistics() {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    }
+
+    // SQL запроса к reviews, содержащий fragment, из статистики H2. Параметры WHERE идут в порядке текста,
+    // за ними - FETCH FIRST (и OFFSET перед ним, если Hibernate его добавил)
+    private String explainCaptured(String fragment, int limit, Object... whereParams) {
+        List<String> captured = jdbcTemplate.queryForList("""
+                        SELECT sql_statement FROM information_schema.query_statistics
+                        WHERE LOWER(sql_statement) LIKE ?
+                        """,
+                String.class, "%from reviews%" + fragment + "%");
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        assertThat(captured).hasSize(1);
+
+        String sql = captured.get(0);
+        List<Object> params = new ArrayList<>(List.of(whereParams));
+        long paging = sql.chars().filter(c -> c == '?').count() - params.size();
+        if (paging == 2) {
+            params.add(0);
+        }
+        if (paging >= 1) {
+            params.add(limit);
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, params.toArray()));
+    }
+}
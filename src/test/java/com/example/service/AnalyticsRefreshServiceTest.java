@@ -0,0 +1,147 @@
+package com.example.service;
+
+import com.example.config.AnalyticsProperties;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сводки после пересборки совпадают с агрегатами, посчитанными напрямую по reviews,
+// в том числе с денормализованными счетчиками ресторанов
+@SpringBootTest
+@ActiveProfiles("test")
+class AnalyticsRefreshServiceTest {
+
+    @Autowired
+    private AnalyticsRefreshService analyticsRefreshService;
+
+    @Autowired
+    private AnalyticsProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void summariesMatchSourceAggregates() {
+        CuisineType[] cuisines = {CuisineType.ITALIAN, CuisineType.FRENCH, CuisineType.ITALIAN};
+        List<Long> restaurantIds = new ArrayList<>();
+        for (int i = 0; i < cuisines.length; i++) {
+            restaurantIds.add(restaurantService.save(new RestaurantRequestDTO(
+                    "Analytics " + i, "Summary", cuisines[i], new BigDecimal(500 + i * 250))).id());
+        }
+        for (int v = 0; v < 4; v++) {
+            Long visitorId = visitorService.save(new VisitorRequestDTO("Analyst " + v, 20 + v, "Other")).id();
+            for (int r = 0; r <= v && r < restaurantIds.size(); r++) {
+                reviewService.save(new ReviewRequestDTO(visitorId, restaurantIds.get(r), (v + r) % 5 + 1, null));
+            }
+        }
+
+        analyticsRefreshService.refresh();
+
+        assertThat(rows("""
+                SELECT cuisine_type, restaurant_count, review_count, rating_sum, total_bill
+                FROM analytics_cuisine_stats
+                ORDER BY cuisine_type
+                """)).isEqualTo(rows("""
+                SELECT rs.cuisine_type, COUNT(*), SUM(COALESCE(rv.review_count, 0)),
+                       SUM(COALESCE(rv.rating_sum, 0)), SUM(rs.average_bill)
+                FROM restaurants rs
+                LEFT JOIN (SELECT restaurant_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum
+                           FROM reviews GROUP BY restaurant_id) rv ON rv.restaurant_id = rs.id
+                GROUP BY rs.cuisine_type
+                ORDER BY rs.cuisine_type
+                """));
+
+        LocalDate windowStart = LocalDate.now().minusDays(properties.dailyWindowDays());
+        assertThat(rows("""
+                SELECT review_date, review_count, rating_sum
+                FROM analytics_daily_reviews
+                WHERE review_date >= ?
+                ORDER BY review_date
+                """, Date.valueOf(windowStart))).isEqualTo(rows("""
+                SELECT CAST(created_at AS DATE) AS review_date, COUNT(*), SUM(rating)
+                FROM reviews
+                WHERE created_at >= ?
+                GROUP BY CAST(created_at AS DATE)
+                ORDER BY review_date
+                """, Timestamp.valueOf(windowStart.atStartOfDay())));
+
+        assertThat(rows("""
+                SELECT visitor_id, visitor_name, review_count, rating_sum
+                FROM analytics_top_visitors
+                ORDER BY review_count DESC, visitor_id
+                """)).isEqualTo(rows("""
+                SELECT v.id, v.name, COUNT(*) AS review_count, SUM(r.rating)
+                FROM reviews r
+                JOIN visitors v ON v.id = r.visitor_id
+                GROUP BY v.id, v.name
+                ORDER BY review_count DESC, v.id
+                LIMIT ?
+                """, properties.topVisitors()));
+        assertThat(analyticsRefreshService.lastRefreshedAt()).isNotNull();
+    }
+
+    // Запуск по расписанию не пересобирает сводки, свежие в пределах интервала, но берет их время
+    // для gauge устаревания; устаревшие сводки пересобирает
+    @Test
+    void scheduledRefreshSkipsFreshSummaries() {
+        analyticsRefreshService.refresh();
+        Timestamp refreshedAt = sharedRefreshedAt();
+
+        analyticsRefreshService.scheduledRefresh();
+
+        assertThat(sharedRefreshedAt()).isEqualTo(refreshedAt);
+        assertThat(analyticsRefreshService.lastRefreshedAt()).isEqualTo(refreshedAt.toInstant());
+
+        Timestamp stale = Timestamp.from(refreshedAt.toInstant().minusMillis(properties.refreshIntervalMs() + 1000));
+        jdbcTemplate.update("UPDATE analytics_refresh SET refreshed_at = ? WHERE id = 1", stale);
+
+        analyticsRefreshService.scheduledRefresh();
+
+        assertThat(sharedRefreshedAt()).isAfter(stale);
+        assertThat(analyticsRefreshService.lastRefreshedAt()).isEqualTo(sharedRefreshedAt().toInstant());
+    }
+
+    private Timestamp sharedRefreshedAt() {
+        return jdbcTemplate.queryForObject("SELECT refreshed_at FROM analytics_refresh WHERE id = 1", Timestamp.class);
+    }
+
+    // Числа приводятся к BigDecimal без хвостовых нулей: SUM по BIGINT и по INTEGER дает разные типы
+    private List<List<Object>> rows(String sql, Object... args) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, args)) {
+            List<Object> values = new ArrayList<>();
+            for (Object value : row.values()) {
+                values.add(value instanceof Number number
+                        ? new BigDecimal(number.toString()).stripTrailingZeros()
+                        : String.valueOf(value));
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+}
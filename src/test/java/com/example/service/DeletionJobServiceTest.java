@@ -0,0 +1,109 @@
+package com.example.service;
+
+import com.example.dto.DeletionJobDTO;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.VisitorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Порция меньше числа отзывов, чтобы удаление шло в несколько транзакций; пауза между порциями
+// держит задания в очереди, а хранится всего одно завершенное
+@SpringBootTest(properties = {
+        "app.deletion.batch-size=2",
+        "app.deletion.batch-pause=50ms",
+        "app.deletion.max-retained-jobs=1"
+})
+@ActiveProfiles("test")
+class DeletionJobServiceTest {
+
+    @Autowired
+    private DeletionJobService deletionJobService;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private VisitorRepository visitorRepository;
+
+    @Test
+    void visitorDeletionRunsInBatchesAndRecomputesRatings() throws Exception {
+        Long leaving = visitorService.save(new VisitorRequestDTO("Leaving", 40, "Other")).id();
+        Long staying = visitorService.save(new VisitorRequestDTO("Staying", 41, "Other")).id();
+        List<Long> restaurantIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                    "Deletion Cafe " + i, "Batch delete", CuisineType.EUROPEAN, new BigDecimal("700.00"))).id();
+            reviewService.save(new ReviewRequestDTO(leaving, restaurantId, 1, "leaving"));
+            reviewService.save(new ReviewRequestDTO(staying, restaurantId, 5, "staying"));
+            restaurantIds.add(restaurantId);
+        }
+
+        DeletionJobDTO job = deletionJobService.deleteVisitor(leaving);
+        DeletionJobDTO finished = awaitFinished(job.id());
+
+        assertThat(finished.status()).isEqualTo(DeletionJobDTO.Status.COMPLETED);
+        assertThat(finished.reviewsDeleted()).isEqualTo(5L);
+        assertThat(visitorRepository.existsById(leaving)).isFalse();
+        for (Long restaurantId : restaurantIds) {
+            assertThat(restaurantRepository.findById(restaurantId)).hasValueSatisfying(restaurant -> {
+                assertThat(restaurant.getReviewCount()).isEqualTo(1L);
+                assertThat(restaurant.getRating()).isEqualByComparingTo("5.00");
+            });
+        }
+    }
+
+    @Test
+    void queuedJobsAreNotEvicted() throws Exception {
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Queue Cafe", "Batch delete", CuisineType.EUROPEAN, new BigDecimal("700.00"))).id();
+        List<String> jobIds = new ArrayList<>();
+        List<Long> visitorIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long visitorId = visitorService.save(new VisitorRequestDTO("Queued " + i, 30, "Other")).id();
+            reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, i + 1, "queued"));
+            visitorIds.add(visitorId);
+        }
+        for (Long visitorId : visitorIds) {
+            jobIds.add(deletionJobService.deleteVisitor(visitorId).id());
+        }
+
+        for (String jobId : jobIds) {
+            assertThat(deletionJobService.findJob(jobId)).isPresent();
+        }
+        assertThat(awaitFinished(jobIds.get(jobIds.size() - 1)).status()).isEqualTo(DeletionJobDTO.Status.COMPLETED);
+        assertThat(restaurantRepository.findById(restaurantId)).hasValueSatisfying(restaurant ->
+                assertThat(restaurant.getReviewCount()).isZero());
+    }
+
+    private DeletionJobDTO awaitFinished(String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            DeletionJobDTO job = deletionJobService.findJob(jobId).orElseThrow();
+            if (job.status() == DeletionJobDTO.Status.COMPLETED || job.status() == DeletionJobDTO.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Задание удаления не завершилось: " + jobId);
+    }
+}
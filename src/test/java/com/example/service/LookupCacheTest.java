@@ -0,0 +1,122 @@
+package com.example.service;
+
+import com.example.config.CacheConfig;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Кэш поиска по id: запись вытесняет закэшированное значение, причем только после коммита,
+// и следующее чтение видит новые данные, а не старую копию
+@SpringBootTest
+@ActiveProfiles("test")
+class LookupCacheTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void restaurantUpdateEvictsAndNextReadIsFresh() {
+        Long id = restaurant("Cache Old");
+        restaurantService.findById(id);
+        assertThat(cached(CacheConfig.RESTAURANTS, id)).isNotNull();
+
+        restaurantService.update(id, request("Cache New"));
+
+        assertThat(cached(CacheConfig.RESTAURANTS, id)).isNull();
+        assertThat(restaurantService.findById(id).name()).isEqualTo("Cache New");
+        assertThat(((RestaurantResponseDTO) cached(CacheConfig.RESTAURANTS, id).get()).name()).isEqualTo("Cache New");
+    }
+
+    @Test
+    void reviewWriteEvictsRestaurantRating() {
+        Long restaurantId = restaurant("Cache Rating");
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Cache Critic", 38, "Man")).id();
+        assertThat(restaurantService.findById(restaurantId).rating()).isEqualByComparingTo("0");
+
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, 4, "cached"));
+
+        assertThat(cached(CacheConfig.RESTAURANTS, restaurantId)).isNull();
+        assertThat(restaurantService.findById(restaurantId).rating()).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void visitorUpdateAndDeleteEvict() {
+        Long id = visitorService.save(new VisitorRequestDTO("Cache Visitor", 27, "Woman")).id();
+        visitorService.findById(id);
+
+        visitorService.update(id, new VisitorRequestDTO("Cache Renamed", 28, "Woman"));
+        assertThat(cached(CacheConfig.VISITORS, id)).isNull();
+        assertThat(visitorService.findById(id).name()).isEqualTo("Cache Renamed");
+
+        visitorService.delete(id);
+        assertThat(cached(CacheConfig.VISITORS, id)).isNull();
+    }
+
+    @Test
+    void evictionIsDeferredUntilCommit() {
+        Long id = restaurant("Cache Before Commit");
+        restaurantService.findById(id);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            restaurantService.update(id, request("Cache After Commit"));
+            // До коммита в кэше остается зафиксированное значение: новое еще никому не видно
+            assertThat(((RestaurantResponseDTO) cached(CacheConfig.RESTAURANTS, id).get()).name())
+                    .isEqualTo("Cache Before Commit");
+        });
+
+        assertThat(cached(CacheConfig.RESTAURANTS, id)).isNull();
+        assertThat(restaurantService.findById(id).name()).isEqualTo("Cache After Commit");
+    }
+
+    @Test
+    void rolledBackUpdateKeepsCachedValue() {
+        Long id = restaurant("Cache Kept");
+        restaurantService.findById(id);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            restaurantService.update(id, request("Cache Discarded"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(((RestaurantResponseDTO) cached(CacheConfig.RESTAURANTS, id).get()).name()).isEqualTo("Cache Kept");
+        assertThat(restaurantService.findById(id).name()).isEqualTo("Cache Kept");
+    }
+
+    private Cache.ValueWrapper cached(String cacheName, Long id) {
+        return cacheManager.getCache(cacheName).get(id);
+    }
+
+    private Long restaurant(String name) {
+        return restaurantService.save(request(name)).id();
+    }
+
+    private static RestaurantRequestDTO request(String name) {
+        return new RestaurantRequestDTO(name, "Cache", CuisineType.EUROPEAN, new BigDecimal("1100.00"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.service;
+
+import com.example.config.RatingAsyncProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// Очередь склеивает повторные отметки ресторана, а при переполнении ничего не пересчитывает
+// в потоке записи: лишние рестораны ждут следующего сброса
+class RatingRecalculationQueueTest {
+
+    private final RestaurantRatingService ratingService = mock(RestaurantRatingService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RatingRecalculationQueue queue = new RatingRecalculationQueue(
+            ratingService, new RatingAsyncProperties(true, 2, 500), meterRegistry);
+
+    @Test
+    void repeatedMarksAreCoalesced() {
+        queue.markDirty(1L);
+        queue.markDirty(1L);
+        queue.markDirty(2L);
+        queue.markDirty(1L);
+
+        queue.flush();
+
+        verify(ratingService, times(1)).recalculate(1L);
+        verify(ratingService, times(1)).recalculate(2L);
+        assertThat(meterRegistry.get("app.rating.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void overflowIsDeferredToNextFlush() {
+        queue.markDirty(1L);
+        queue.markDirty(2L);
+        queue.markDirty(3L);
+        queue.markDirty(3L);
+
+        verifyNoInteractions(ratingService);
+        assertThat(meterRegistry.get("app.rating.queue.overflow").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("app.rating.queue.depth").gauge().value()).isEqualTo(3);
+
+        queue.flush();
+
+        verify(ratingService, times(1)).recalculate(1L);
+        verify(ratingService, times(1)).recalculate(2L);
+        verify(ratingService, times(1)).recalculate(3L);
+    }
+}
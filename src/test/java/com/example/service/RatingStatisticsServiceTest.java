@@ -0,0 +1,91 @@
+package com.example.service;
+
+import com.example.dto.RatingCountDTO;
+import com.example.dto.RatingStatsDTO;
+import com.example.exception.InvalidRequestException;
+import com.example.repository.RestaurantRepository;
+import com.example.repository.ReviewRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Статистика выводится из гистограммы: медиана при нечетном и четном числе отзывов,
+// лимит пакета и отбрасывание несуществующих ресторанов
+class RatingStatisticsServiceTest {
+
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+    private final RatingStatisticsService service = new RatingStatisticsService(reviewRepository, restaurantRepository);
+
+    @Test
+    void medianOfOddCountIsMiddleRating() {
+        histogram(1L, new RatingCountDTO(1L, 1, 1L), new RatingCountDTO(1L, 2, 1L), new RatingCountDTO(1L, 5, 1L));
+
+        RatingStatsDTO stats = service.getStats(1L);
+
+        assertThat(stats.total()).isEqualTo(3);
+        assertThat(stats.median()).isEqualByComparingTo("2.0");
+        assertThat(stats.average()).isEqualByComparingTo("2.67");
+        assertThat(stats.positivePercent()).isEqualByComparingTo("33.33");
+        assertThat(stats.histogram()).containsExactly(
+                Map.entry(1, 1L), Map.entry(2, 1L), Map.entry(3, 0L), Map.entry(4, 0L), Map.entry(5, 1L));
+    }
+
+    @Test
+    void medianOfEvenCountAveragesTwoMiddleRatings() {
+        histogram(1L, new RatingCountDTO(1L, 3, 2L), new RatingCountDTO(1L, 4, 2L));
+        assertThat(service.getStats(1L).median()).isEqualByComparingTo("3.5");
+
+        histogram(2L, new RatingCountDTO(2L, 1, 1L), new RatingCountDTO(2L, 2, 1L),
+                new RatingCountDTO(2L, 4, 1L), new RatingCountDTO(2L, 5, 1L));
+        assertThat(service.getStats(2L).median()).isEqualByComparingTo("3.0");
+    }
+
+    @Test
+    void restaurantWithoutReviewsHasZeroStatsAndUnknownIsNotFound() {
+        histogram(1L);
+        when(restaurantRepository.existsById(1L)).thenReturn(true);
+        RatingStatsDTO empty = service.getStats(1L);
+        assertThat(empty.total()).isZero();
+        assertThat(empty.median()).isZero();
+
+        histogram(2L);
+        assertThatThrownBy(() -> service.getStats(2L)).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void unknownIdsAreDroppedAndRequestOrderKept() {
+        when(restaurantRepository.findExistingIds(any())).thenReturn(Set.of(1L, 3L));
+        when(reviewRepository.countByRestaurantIdsAndRating(any()))
+                .thenReturn(List.of(new RatingCountDTO(3L, 5, 2L), new RatingCountDTO(1L, 2, 1L)));
+
+        List<RatingStatsDTO> stats = service.getStats(List.of(3L, 99L, 1L, 3L));
+
+        assertThat(stats).extracting(RatingStatsDTO::restaurantId).containsExactly(3L, 1L);
+        assertThat(stats.get(0).median()).isEqualByComparingTo("5.0");
+    }
+
+    @Test
+    void moreThanThousandIdsAreRejected() {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        assertThatThrownBy(() -> service.getStats(ids)).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(reviewRepository, restaurantRepository);
+        assertThat(service.getStats(ids.subList(0, 1000))).isEmpty();
+    }
+
+    private void histogram(Long restaurantId, RatingCountDTO... rows) {
+        when(reviewRepository.countByRestaurantIdsAndRating(List.of(restaurantId))).thenReturn(List.of(rows));
+    }
+}
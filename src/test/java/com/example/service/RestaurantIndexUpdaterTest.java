@@ -0,0 +1,68 @@
+package com.example.service;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Индексы в памяти обновляются воркером после коммита: создание, изменение рейтинга и удаление
+@SpringBootTest
+@ActiveProfiles("test")
+class RestaurantIndexUpdaterTest {
+
+    @Autowired
+    private RestaurantIndexUpdater indexUpdater;
+
+    @Autowired
+    private RestaurantLeaderboardService leaderboardService;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void leaderboardFollowsWrites() throws Exception {
+        Long restaurantId = restaurantService.save(new RestaurantRequestDTO(
+                "Index Grill", "Leaderboard feed", CuisineType.AMERICAN, new BigDecimal("650.00"))).id();
+        Long visitorId = visitorService.save(new VisitorRequestDTO("Ranker", 33, "Other")).id();
+        awaitIdle();
+        assertThat(find(restaurantId)).isPresent();
+
+        reviewService.save(new ReviewRequestDTO(visitorId, restaurantId, 4, "indexed"));
+        awaitIdle();
+        assertThat(find(restaurantId)).hasValueSatisfying(
+                restaurant -> assertThat(restaurant.rating()).isEqualByComparingTo("4.00"));
+
+        restaurantService.delete(restaurantId);
+        awaitIdle();
+        assertThat(find(restaurantId)).isEmpty();
+    }
+
+    private Optional<RestaurantResponseDTO> find(Long restaurantId) {
+        return leaderboardService.top(CuisineType.AMERICAN, RestaurantLeaderboardService.MAX_LIMIT).stream()
+                .filter(restaurant -> restaurant.id().equals(restaurantId))
+                .findFirst();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && !indexUpdater.isIdle(); attempt++) {
+            Thread.sleep(20);
+        }
+        assertThat(indexUpdater.isIdle()).isTrue();
+    }
+}
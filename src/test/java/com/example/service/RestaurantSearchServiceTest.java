@@ -0,0 +1,145 @@
+package com.example.service;
+
+import com.example.config.RestaurantSearchProperties;
+import com.example.dto.FacetBucketDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.RestaurantSearchResultDTO;
+import com.example.entity.CuisineType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Индекс поиска без Spring: токенизация, префиксы, фильтры с фасетами и обновления документов
+class RestaurantSearchServiceTest {
+
+    private RestaurantSearchService searchService;
+
+    @BeforeEach
+    void createIndex() {
+        searchService = new RestaurantSearchService(new RestaurantSearchProperties(
+                List.of(new BigDecimal("1000"), new BigDecimal("2000"), new BigDecimal("3000"), new BigDecimal("5000")),
+                100, 10000, 300000));
+    }
+
+    @Test
+    void tokenizeLowercasesSplitsAndFoldsYo() {
+        assertThat(RestaurantSearchService.tokenize("Пицца-Бар «Ёлка» 24/7, пицца"))
+                .containsExactly("пицца", "бар", "елка", "24", "7");
+        assertThat(RestaurantSearchService.tokenize("  ")).isEmpty();
+        assertThat(RestaurantSearchService.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void everyTermMatchesAsPrefix() {
+        searchService.upsert(restaurant(1, "Пиццерия Уно", "Неаполитанская пицца", CuisineType.ITALIAN, 1500, 4.5));
+        searchService.upsert(restaurant(2, "Суши Бар", "Роллы и пицца", CuisineType.JAPANESE, 2500, 4.0));
+        searchService.upsert(restaurant(3, "Бургерная", "Бургеры", CuisineType.AMERICAN, 900, 3.0));
+
+        assertThat(ids(search("пиц", Set.of(), null, null, null, null))).containsExactly(1L, 2L);
+        assertThat(ids(search("пицц ролл", Set.of(), null, null, null, null))).containsExactly(2L);
+        assertThat(ids(search("паста", Set.of(), null, null, null, null))).isEmpty();
+    }
+
+    @Test
+    void upsertReplacesTermsAndRemoveUnindexes() {
+        searchService.upsert(restaurant(1, "Старое имя", "Описание", CuisineType.FRENCH, 1200, 3.5));
+        searchService.upsert(restaurant(1, "Новое имя", "Описание", CuisineType.FRENCH, 1200, 4.5));
+
+        assertThat(ids(search("старое", Set.of(), null, null, null, null))).isEmpty();
+        RestaurantSearchResultDTO renamed = search("новое", Set.of(), null, null, null, null);
+        assertThat(ids(renamed)).containsExactly(1L);
+        assertThat(renamed.content().get(0).rating()).isEqualByComparingTo("4.5");
+        assertThat(search(null, Set.of(), null, null, null, null).total()).isEqualTo(1);
+
+        searchService.remove(1L);
+        assertThat(ids(search("новое", Set.of(), null, null, null, null))).isEmpty();
+        assertThat(search(null, Set.of(), null, null, null, null).total()).isZero();
+    }
+
+    // Запрос без текста считает фасеты по ячейкам - результат должен совпадать с поштучным подсчетом
+    @Test
+    void filtersAndFacetsMatchBruteForce() {
+        Random random = new Random(42);
+        List<RestaurantResponseDTO> all = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            CuisineType cuisineType = CuisineType.values()[random.nextInt(CuisineType.values().length)];
+            RestaurantResponseDTO restaurant = restaurant(id, "Ресторан " + id, "Кафе", cuisineType,
+                    300 + random.nextInt(6000), random.nextInt(501) / 100.0);
+            all.add(restaurant);
+            searchService.upsert(restaurant);
+        }
+
+        Set<CuisineType> cuisines = Set.of(CuisineType.ITALIAN, CuisineType.FRENCH);
+        BigDecimal minBill = new BigDecimal("1500");
+        BigDecimal maxBill = new BigDecimal("3000");
+        BigDecimal minRating = new BigDecimal("2.5");
+        for (String text : new String[]{null, "кафе"}) {
+            RestaurantSearchResultDTO result = search(text, cuisines, minBill, maxBill, minRating, null);
+
+            List<RestaurantResponseDTO> expected = all.stream()
+                    .filter(r -> cuisines.contains(r.cuisineType()))
+                    .filter(r -> inRange(r.averageBill(), minBill, maxBill))
+                    .filter(r -> inRange(r.rating(), minRating, null))
+                    .sorted(Comparator.comparing(RestaurantResponseDTO::rating).reversed()
+                            .thenComparing(RestaurantResponseDTO::id))
+                    .toList();
+            assertThat(result.total()).isEqualTo(expected.size());
+            assertThat(result.content()).containsExactlyElementsOf(expected.subList(0, Math.min(20, expected.size())));
+
+            for (CuisineType cuisineType : CuisineType.values()) {
+                long count = all.stream()
+                        .filter(r -> r.cuisineType() == cuisineType)
+                        .filter(r -> inRange(r.averageBill(), minBill, maxBill))
+                        .filter(r -> inRange(r.rating(), minRating, null))
+                        .count();
+                assertThat(result.cuisineTypes().get(cuisineType)).as("cuisine %s", cuisineType).isEqualTo(count);
+            }
+            for (FacetBucketDTO bucket : result.averageBill()) {
+                long count = all.stream()
+                        .filter(r -> cuisines.contains(r.cuisineType()))
+                        .filter(r -> inRange(r.rating(), minRating, null))
+                        .filter(r -> inBucket(r.averageBill(), bucket))
+                        .count();
+                assertThat(bucket.count()).as("bill %s", bucket.key()).isEqualTo(count);
+            }
+            long ratingTotal = result.rating().stream().mapToLong(FacetBucketDTO::count).sum();
+            assertThat(ratingTotal).isEqualTo(all.stream()
+                    .filter(r -> cuisines.contains(r.cuisineType()))
+                    .filter(r -> inRange(r.averageBill(), minBill, maxBill))
+                    .count());
+        }
+    }
+
+    private RestaurantSearchResultDTO search(String text, Set<CuisineType> cuisineTypes, BigDecimal minBill,
+                                             BigDecimal maxBill, BigDecimal minRating, BigDecimal maxRating) {
+        return searchService.search(new RestaurantSearchQuery(
+                text, cuisineTypes, minBill, maxBill, minRating, maxRating, 0, 20));
+    }
+
+    private static List<Long> ids(RestaurantSearchResultDTO result) {
+        return result.content().stream().map(RestaurantResponseDTO::id).toList();
+    }
+
+    private static boolean inRange(BigDecimal value, BigDecimal min, BigDecimal max) {
+        return (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+    private static boolean inBucket(BigDecimal value, FacetBucketDTO bucket) {
+        return (bucket.from() == null || value.compareTo(bucket.from()) >= 0)
+                && (bucket.to() == null || value.compareTo(bucket.to()) < 0);
+    }
+
+    private static RestaurantResponseDTO restaurant(long id, String name, String description, CuisineType cuisineType,
+                                                    double averageBill, double rating) {
+        return new RestaurantResponseDTO(id, name, description, cuisineType,
+                BigDecimal.valueOf(averageBill), BigDecimal.valueOf(rating));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.service;
+
+import com.example.dto.BulkImportErrorDTO;
+import com.example.dto.BulkImportReportDTO;
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.repository.RestaurantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+
+// Импорт порциями по три строки: границы порций, отклонение некорректных строк без остановки импорта
+// и откат только той порции, которую отвергла база
+@SpringBootTest(properties = {
+        "app.import.chunk-size=3",
+        "app.import.max-reported-errors=3"
+})
+@ActiveProfiles("test")
+class ReviewImportServiceTest {
+
+    @Autowired
+    private ReviewImportService importService;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @MockitoSpyBean
+    private RestaurantRatingService restaurantRatingService;
+
+    @Test
+    void rowsSpanningChunkBoundariesAreAllImported() throws IOException {
+        Long restaurantId = restaurant("Import Boundaries");
+        List<Long> visitors = visitors(7);
+        StringBuilder input = new StringBuilder();
+        for (Long visitorId : visitors) {
+            input.append(row(visitorId, restaurantId, 4));
+        }
+        // Дубль первой строки приходит в третьей порции и находится по уже закоммиченным данным
+        input.append(row(visitors.get(0), restaurantId, 1));
+
+        BulkImportReportDTO report = importService.importReviews(ndjson(input));
+
+        assertThat(report.received()).isEqualTo(8);
+        assertThat(report.imported()).isEqualTo(7);
+        assertThat(report.errors()).extracting(BulkImportErrorDTO::row).containsExactly(8L);
+        assertThat(report.errors().get(0).message()).isEqualTo("Посетитель уже оставил отзыв");
+        assertThat(restaurantRepository.findReviewCountById(restaurantId)).contains(7L);
+        assertThat(restaurantService.findById(restaurantId).rating()).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void invalidRowsAreRejectedAndOthersImported() throws IOException {
+        Long restaurantId = restaurant("Import Validation");
+        List<Long> visitors = visitors(2);
+        String input = row(visitors.get(0), restaurantId, 5)
+                + row(visitors.get(1), restaurantId, 6)
+                + row(Long.MAX_VALUE, restaurantId, 3)
+                + row(visitors.get(1), Long.MAX_VALUE, 3)
+                + "{\"restaurantId\": " + restaurantId + ", \"rating\": 2}\n"
+                + row(visitors.get(1), restaurantId, 2);
+
+        BulkImportReportDTO report = importService.importReviews(ndjson(input));
+
+        assertThat(report.received()).isEqualTo(6);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(4);
+        // В отчет попадают только первые max-reported-errors ошибок
+        assertThat(report.errorsTruncated()).isTrue();
+        assertThat(report.errors()).extracting(BulkImportErrorDTO::row, BulkImportErrorDTO::message)
+                .containsExactly(
+                        tuple(2L, "Не более 5"),
+                        tuple(3L, "Посетитель не найден с id: " + Long.MAX_VALUE),
+                        tuple(5L, "Visitor ID обязателен"));
+        assertThat(restaurantRepository.findReviewCountById(restaurantId)).contains(2L);
+    }
+
+    @Test
+    void rejectedChunkIsRolledBackAndOtherChunksCommitted() throws IOException {
+        Long rejected = restaurant("Import Rejected");
+        Long committed = restaurant("Import Committed");
+        List<Long> visitors = visitors(3);
+        String input = row(visitors.get(0), rejected, 5)
+                + row(visitors.get(1), rejected, 5)
+                + row(visitors.get(2), rejected, 5)
+                + row(visitors.get(0), committed, 3)
+                + row(visitors.get(1), committed, 3);
+        doThrow(new DataIntegrityViolationException("отказ базы")).doCallRealMethod()
+                .when(restaurantRatingService).onReviewsChanged(anyLong(), anyLong(), anyLong());
+
+        BulkImportReportDTO report = importService.importReviews(ndjson(input));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(3);
+        assertThat(report.errors()).allSatisfy(error ->
+                assertThat(error.message()).startsWith("Порция отклонена базой данных"));
+        assertThat(restaurantRepository.findReviewCountById(rejected)).contains(0L);
+        assertThat(restaurantRepository.findReviewCountById(committed)).contains(2L);
+    }
+
+    @Test
+    void malformedJsonStopsImportButKeepsEarlierRows() throws IOException {
+        Long restaurantId = restaurant("Import Malformed");
+        List<Long> visitors = visitors(4);
+        StringBuilder input = new StringBuilder();
+        for (Long visitorId : visitors) {
+            input.append(row(visitorId, restaurantId, 2));
+        }
+        input.append("{\"visitorId\": oops}\n").append(row(visitors.get(0), restaurantId, 5));
+
+        BulkImportReportDTO report = importService.importReviews(ndjson(input));
+
+        assertThat(report.imported()).isEqualTo(4);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.errors().get(0).message()).startsWith("Некорректный JSON, импорт остановлен");
+        assertThat(restaurantRepository.findReviewCountById(restaurantId)).contains(4L);
+    }
+
+    private Long restaurant(String name) {
+        return restaurantService.save(new RestaurantRequestDTO(
+                name, "Import", CuisineType.INDIAN, new BigDecimal("950.00"))).id();
+    }
+
+    private List<Long> visitors(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(visitorService.save(new VisitorRequestDTO("Importer " + i, 30 + i, "Other")).id());
+        }
+        return ids;
+    }
+
+    private static String row(Long visitorId, Long restaurantId, int rating) {
+        return "{\"visitorId\": %d, \"restaurantId\": %d, \"rating\": %d, \"reviewText\": \"import\"}\n"
+                .formatted(visitorId, restaurantId, rating);
+    }
+
+    private static ByteArrayInputStream ndjson(CharSequence input) {
+        return new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
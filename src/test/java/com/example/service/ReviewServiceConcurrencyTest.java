@@ -0,0 +1,104 @@
+package com.example.service;
+
+import com.example.dto.RestaurantRequestDTO;
+import com.example.dto.RestaurantResponseDTO;
+import com.example.dto.ReviewRequestDTO;
+import com.example.dto.VisitorRequestDTO;
+import com.example.entity.CuisineType;
+import com.example.entity.Restaurant;
+import com.example.repository.RestaurantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewServiceConcurrencyTest {
+
+    private static final int VISITORS = 2000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private VisitorService visitorService;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Test
+    void parallelReviewWritesKeepRatingAggregatesExact() throws Exception {
+        RestaurantResponseDTO restaurant = restaurantService.save(new RestaurantRequestDTO(
+                "Concurrency Bistro", "Parallel reviews", CuisineType.FRENCH, new BigDecimal("2000.00")));
+
+        List<Long> visitorIds = new ArrayList<>();
+        for (int i = 0; i < VISITORS; i++) {
+            visitorIds.add(visitorService.save(new VisitorRequestDTO("Visitor " + i, 30, "Other")).id());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (int i = 0; i < VISITORS; i++) {
+                Long visitorId = visitorIds.get(i);
+                int rating = i % 5 + 1;
+                inserts.add(executor.submit(() -> reviewService.save(
+                        new ReviewRequestDTO(visitorId, restaurant.id(), rating, "first"))));
+            }
+            awaitAll(inserts);
+
+            // Вторая волна: каждый четвертый отзыв удаляется, каждый второй переоценивается на 5
+            List<Future<?>> changes = new ArrayList<>();
+            for (int i = 0; i < VISITORS; i++) {
+                Long visitorId = visitorIds.get(i);
+                if (i % 4 == 0) {
+                    changes.add(executor.submit(() -> reviewService.delete(visitorId, restaurant.id())));
+                } else if (i % 2 == 1) {
+                    changes.add(executor.submit(() -> reviewService.update(
+                            visitorId, restaurant.id(), new ReviewRequestDTO(visitorId, restaurant.id(), 5, "second"))));
+                }
+            }
+            awaitAll(changes);
+        } finally {
+            executor.shutdown();
+        }
+
+        long expectedCount = 0;
+        long expectedSum = 0;
+        for (int i = 0; i < VISITORS; i++) {
+            if (i % 4 == 0) {
+                continue;
+            }
+            expectedCount++;
+            expectedSum += i % 2 == 1 ? 5 : i % 5 + 1;
+        }
+        BigDecimal expectedRating = BigDecimal.valueOf(expectedSum)
+                .divide(BigDecimal.valueOf(expectedCount), 2, RoundingMode.HALF_UP);
+
+        Restaurant reloaded = restaurantRepository.findById(restaurant.id()).orElseThrow();
+        assertThat(reloaded.getReviewCount()).isEqualTo(expectedCount);
+        assertThat(reloaded.getRatingSum()).isEqualTo(expectedSum);
+        assertThat(reloaded.getRating()).isEqualByComparingTo(expectedRating);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.service;
+
+import com.example.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Курсор истории отзывов: decode(encode()) возвращает тот же ключ, вплоть до наносекунд
+class VisitorReviewCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        VisitorReviewCursor cursor = new VisitorReviewCursor(Instant.parse("2024-03-15T10:20:30.123456789Z"), 42L);
+
+        assertThat(VisitorReviewCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void firstPageCursorRoundTrips() {
+        VisitorReviewCursor first = VisitorReviewCursor.first();
+
+        assertThat(VisitorReviewCursor.decode(first.encode())).isEqualTo(first);
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String wrongParts = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1:2".getBytes(StandardCharsets.UTF_8));
+        String notNumbers = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("a:b:c".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> VisitorReviewCursor.decode("%%%")).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> VisitorReviewCursor.decode(wrongParts)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> VisitorReviewCursor.decode(notNumbers)).isInstanceOf(InvalidRequestException.class);
+    }
+}